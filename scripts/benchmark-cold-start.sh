@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+#
+# Mede cold start das três funções: força um novo ambiente de execução (alterando uma
+# variável de ambiente), invoca uma vez e extrai do REPORT o Init Duration (ou o Restore
+# Duration, com SnapStart) e a Duration. Tempo até a primeira resposta = inicialização + Duration.
+#
+# Uso:
+#   scripts/benchmark-cold-start.sh <sufixo-a> <sufixo-b> [repeticoes]
+#
+# Exemplos, com as variantes implantadas como ReceberFeedbackFunction<sufixo>:
+#   scripts/benchmark-cold-start.sh -jvm -native 5
+#   PUBLICAR_VERSAO=1 scripts/benchmark-cold-start.sh -jvm -snapstart 5
+#
+# SnapStart só vale para versões publicadas: com PUBLICAR_VERSAO=1 cada medição publica uma
+# versão nova e invoca essa versão (a primeira invocação restaura o snapshot).
+#
+# Requer AWS CLI e jq. A variável BENCHMARK_COLD_START é sobrescrita nas funções medidas.
+
+set -euo pipefail
+
+SUFIXO_A="${1:?sufixo da primeira variante}"
+SUFIXO_B="${2:?sufixo da segunda variante}"
+REPETICOES="${3:-3}"
+PUBLICAR_VERSAO="${PUBLICAR_VERSAO:-0}"
+
+EVENTO_FEEDBACK='{"body":"{\"restaurante\":\"Benchmark\",\"nota\":5,\"comentario\":\"cold start\"}"}'
+EVENTO_RELATORIO='{"source":"aws.events","detail-type":"Scheduled Event","detail":{}}'
+EVENTO_NOTIFICACAO='{"Records":[{"messageId":"benchmark-1","body":"{\"avaliacaoId\":1,\"restaurante\":\"Benchmark\",\"nota\":1}","attributes":{},"eventSourceARN":"arn:aws:sqs:us-east-2:000000000000:benchmark"}]}'
+
+TMP="$(mktemp -d)"
+trap 'rm -rf "$TMP"' EXIT
+
+forcar_cold_start() {
+    local funcao="$1"
+    local variaveis
+    variaveis="$(aws lambda get-function-configuration --function-name "$funcao" \
+        --query 'Environment.Variables' --output json)"
+    [ "$variaveis" = "null" ] && variaveis='{}'
+    variaveis="$(echo "$variaveis" | jq -c --arg v "$(date +%s%N)" '. + {BENCHMARK_COLD_START: $v}')"
+    aws lambda update-function-configuration --function-name "$funcao" \
+        --environment "{\"Variables\":$variaveis}" > /dev/null
+    aws lambda wait function-updated --function-name "$funcao"
+
+    if [ "$PUBLICAR_VERSAO" = "1" ]; then
+        local versao
+        versao="$(aws lambda publish-version --function-name "$funcao" --query 'Version' --output text)"
+        aws lambda wait published-version-active --function-name "$funcao" --qualifier "$versao"
+        echo "$versao"
+    else
+        echo '$LATEST'
+    fi
+}
+
+# Imprime "<init_ms> <duracao_ms>" de uma invocação fria
+medir() {
+    local funcao="$1" evento="$2"
+    local versao
+    versao="$(forcar_cold_start "$funcao")"
+    local log
+    log="$(aws lambda invoke --function-name "$funcao" --qualifier "$versao" --log-type Tail \
+        --cli-binary-format raw-in-base64-out --payload "$evento" "$TMP/resposta.json" \
+        --query 'LogResult' --output text | base64 --decode)"
+    local report
+    report="$(echo "$log" | grep '^REPORT')"
+    local init duracao
+    init="$(echo "$report" | sed -n 's/.*\(Init\|Restore\) Duration: \([0-9.]*\) ms.*/\2/p')"
+    duracao="$(echo "$report" | sed -n 's/.*RequestId: [^[:space:]]*[[:space:]]*Duration: \([0-9.]*\) ms.*/\1/p')"
+    echo "${init:-0} ${duracao:-0}"
+}
+
+printf '%-28s %-12s %12s %12s %14s\n' "Função" "Variante" "Init (ms)" "Handler (ms)" "1ª resposta"
+for entrada in \
+    "ReceberFeedbackFunction|$EVENTO_FEEDBACK" \
+    "GerarRelatorioFunction|$EVENTO_RELATORIO" \
+    "EnviarNotificacaoFunction|$EVENTO_NOTIFICACAO"; do
+    base="${entrada%%|*}"
+    evento="${entrada#*|}"
+    for sufixo in "$SUFIXO_A" "$SUFIXO_B"; do
+        soma_init=0
+        soma_duracao=0
+        for _ in $(seq "$REPETICOES"); do
+            read -r init duracao <<< "$(medir "$base$sufixo" "$evento")"
+            soma_init="$(echo "$soma_init + $init" | bc)"
+            soma_duracao="$(echo "$soma_duracao + $duracao" | bc)"
+        done
+        media_init="$(echo "scale=1; $soma_init / $REPETICOES" | bc)"
+        media_duracao="$(echo "scale=1; $soma_duracao / $REPETICOES" | bc)"
+        primeira="$(echo "scale=1; $media_init + $media_duracao" | bc)"
+        printf '%-28s %-12s %12s %12s %14s\n' "$base" "$sufixo" "$media_init" "$media_duracao" "$primeira"
+    done
+done
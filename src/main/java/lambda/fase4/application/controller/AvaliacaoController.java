@@ -2,14 +2,29 @@ package lambda.fase4.application.controller;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import lambda.fase4.application.dto.AvaliacaoRequest;
 import lambda.fase4.application.dto.AvaliacaoResponse;
+import lambda.fase4.application.dto.ErrorResponse;
+import lambda.fase4.application.dto.LoteAvaliacaoResponse;
+import lambda.fase4.application.dto.PaginaAvaliacoesResponse;
+import lambda.fase4.application.dto.ResumoRestauranteResponse;
 import lambda.fase4.domain.service.AvaliacaoService;
+import lambda.fase4.domain.service.ResumoRestauranteService;
+import lambda.fase4.infraestructure.CodecsJson;
 import org.jboss.logging.Logger;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 @Path("/api/avaliacoes")
@@ -18,10 +33,14 @@ import java.util.List;
 public class AvaliacaoController {
 
     private static final Logger LOG = Logger.getLogger(AvaliacaoController.class);
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
 
     @Inject
     AvaliacaoService avaliacaoService;
 
+    @Inject
+    ResumoRestauranteService resumoRestauranteService;
+
     @POST
     public Response criar(AvaliacaoRequest request) {
         try {
@@ -40,10 +59,61 @@ public class AvaliacaoController {
         }
     }
 
+    @POST
+    @Path("/batch")
+    public Response criarLote(List<AvaliacaoRequest> requests) {
+        try {
+            LOG.infof("Recebendo lote de avaliações: %d itens", requests != null ? requests.size() : 0);
+            LoteAvaliacaoResponse response = avaliacaoService.salvarLote(requests);
+            Response.Status status = response.getTotalSalvas() > 0
+                ? Response.Status.CREATED
+                : Response.Status.BAD_REQUEST;
+            return Response.status(status).entity(response).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(e.getMessage()))
+                .build();
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro ao criar lote de avaliações");
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity(new ErrorResponse("Erro interno do servidor"))
+                .build();
+        }
+    }
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    public Response listarTodas(@QueryParam("after") Long after,
+                                @QueryParam("limit") Integer limit,
+                                @QueryParam("stream") @DefaultValue("false") boolean stream) {
+        if (stream) {
+            return Response.ok(ndjson(consumidor -> avaliacaoService.transmitirTodas(after, consumidor)),
+                APPLICATION_NDJSON).build();
+        }
+        try {
+            PaginaAvaliacoesResponse pagina = avaliacaoService.listarTodas(after, limit);
+            return Response.ok(pagina).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(e.getMessage()))
+                .build();
+        }
+    }
+
+    // Lido do read model restaurante_resumo, mantido pela projeção assíncrona
     @GET
-    public Response listarTodas() {
-        List<AvaliacaoResponse> avaliacoes = avaliacaoService.listarTodas();
-        return Response.ok(avaliacoes).build();
+    @Path("/ranking")
+    public Response ranking(@QueryParam("limit") @DefaultValue("10") int limit,
+                            @QueryParam("minimo") @DefaultValue("1") long minimo) {
+        try {
+            List<ResumoRestauranteResponse> ranking = resumoRestauranteService.ranking(minimo, limit);
+            // GenericEntity preserva o tipo do elemento para o CodecsJsonProvider
+            return Response.ok(new GenericEntity<List<ResumoRestauranteResponse>>(ranking) {}).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(e.getMessage()))
+                .build();
+        }
     }
 
     @GET
@@ -61,26 +131,56 @@ public class AvaliacaoController {
 
     @GET
     @Path("/restaurante/{nome}")
-    public Response buscarPorRestaurante(@PathParam("nome") String nome) {
-        List<AvaliacaoResponse> avaliacoes = avaliacaoService.buscarPorRestaurante(nome);
-        return Response.ok(avaliacoes).build();
-    }
-
-    // Classe interna para resposta de erro
-    public static class ErrorResponse {
-        private String error;
-
-        public ErrorResponse(String error) {
-            this.error = error;
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    public Response buscarPorRestaurante(@PathParam("nome") String nome,
+                                         @QueryParam("after") Long after,
+                                         @QueryParam("limit") Integer limit,
+                                         @QueryParam("stream") @DefaultValue("false") boolean stream) {
+        if (stream) {
+            return Response.ok(ndjson(consumidor -> avaliacaoService.transmitirPorRestaurante(nome, after, consumidor)),
+                APPLICATION_NDJSON).build();
         }
-
-        public String getError() {
-            return error;
+        try {
+            PaginaAvaliacoesResponse pagina = avaliacaoService.buscarPorRestaurante(nome, after, limit);
+            return Response.ok(pagina).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse(e.getMessage()))
+                .build();
         }
+    }
 
-        public void setError(String error) {
-            this.error = error;
+    // Servido dos contadores em memória: não consulta a tabela de avaliações
+    @GET
+    @Path("/restaurante/{nome}/resumo")
+    public Response resumoRestaurante(@PathParam("nome") String nome) {
+        try {
+            ResumoRestauranteResponse resumo = resumoRestauranteService.buscar(nome);
+            return Response.ok(resumo).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ErrorResponse(e.getMessage()))
+                .build();
         }
     }
-}
 
+    // Escreve uma avaliação JSON por linha conforme o banco entrega as linhas (memória constante)
+    private StreamingOutput ndjson(Consumer<Consumer<AvaliacaoResponse>> fonte) {
+        return output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            try {
+                fonte.accept(avaliacao -> {
+                    try {
+                        CodecsJson.escrever(avaliacao, writer);
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package lambda.fase4.application.dto;
+
+// Corpo das respostas de erro da API REST
+public class ErrorResponse {
+    private String error;
+
+    public ErrorResponse() {}
+
+    public ErrorResponse(String error) {
+        this.error = error;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
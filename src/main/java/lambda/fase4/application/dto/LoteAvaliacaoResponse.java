@@ -0,0 +1,89 @@
+package lambda.fase4.application.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoteAvaliacaoResponse {
+    private Integer totalRecebidas;
+    private Integer totalSalvas;
+    private List<AvaliacaoResponse> avaliacoes;
+    private List<ErroItem> erros;
+
+    public LoteAvaliacaoResponse() {
+        this.avaliacoes = new ArrayList<>();
+        this.erros = new ArrayList<>();
+    }
+
+    public LoteAvaliacaoResponse(Integer totalRecebidas, List<AvaliacaoResponse> avaliacoes, List<ErroItem> erros) {
+        this.totalRecebidas = totalRecebidas;
+        this.totalSalvas = avaliacoes.size();
+        this.avaliacoes = avaliacoes;
+        this.erros = erros;
+    }
+
+    public boolean possuiErros() {
+        return erros != null && !erros.isEmpty();
+    }
+
+    // Getters and Setters
+    public Integer getTotalRecebidas() {
+        return totalRecebidas;
+    }
+
+    public void setTotalRecebidas(Integer totalRecebidas) {
+        this.totalRecebidas = totalRecebidas;
+    }
+
+    public Integer getTotalSalvas() {
+        return totalSalvas;
+    }
+
+    public void setTotalSalvas(Integer totalSalvas) {
+        this.totalSalvas = totalSalvas;
+    }
+
+    public List<AvaliacaoResponse> getAvaliacoes() {
+        return avaliacoes;
+    }
+
+    public void setAvaliacoes(List<AvaliacaoResponse> avaliacoes) {
+        this.avaliacoes = avaliacoes;
+    }
+
+    public List<ErroItem> getErros() {
+        return erros;
+    }
+
+    public void setErros(List<ErroItem> erros) {
+        this.erros = erros;
+    }
+
+    // Erro de validação de um item do lote, identificado pela posição no array recebido
+    public static class ErroItem {
+        private Integer indice;
+        private String mensagem;
+
+        public ErroItem() {}
+
+        public ErroItem(Integer indice, String mensagem) {
+            this.indice = indice;
+            this.mensagem = mensagem;
+        }
+
+        public Integer getIndice() {
+            return indice;
+        }
+
+        public void setIndice(Integer indice) {
+            this.indice = indice;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+
+        public void setMensagem(String mensagem) {
+            this.mensagem = mensagem;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package lambda.fase4.application.dto;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+
+import java.util.List;
+
+/**
+ * Resposta do consumidor SQS: batchItemFailures (lido pelo SQS) mais o tempo de cada registro
+ */
+public class NotificacaoBatchResponse extends SQSBatchResponse {
+    public static final String STATUS_PROCESSADA = "processada";
+    public static final String STATUS_ERRO = "erro";
+    public static final String STATUS_NAO_PROCESSADA = "nao_processada";
+
+    private List<TempoProcessamento> tempos;
+    private Long duracaoTotalMillis;
+
+    public NotificacaoBatchResponse() {}
+
+    public NotificacaoBatchResponse(List<BatchItemFailure> falhas, List<TempoProcessamento> tempos, Long duracaoTotalMillis) {
+        super(falhas);
+        this.tempos = tempos;
+        this.duracaoTotalMillis = duracaoTotalMillis;
+    }
+
+    // Getters and Setters
+    public List<TempoProcessamento> getTempos() {
+        return tempos;
+    }
+
+    public void setTempos(List<TempoProcessamento> tempos) {
+        this.tempos = tempos;
+    }
+
+    public Long getDuracaoTotalMillis() {
+        return duracaoTotalMillis;
+    }
+
+    public void setDuracaoTotalMillis(Long duracaoTotalMillis) {
+        this.duracaoTotalMillis = duracaoTotalMillis;
+    }
+
+    public static class TempoProcessamento {
+        private String messageId;
+        private String grupo;
+        private Long duracaoMillis;
+        private String status; // STATUS_PROCESSADA, STATUS_ERRO ou STATUS_NAO_PROCESSADA
+
+        public TempoProcessamento() {}
+
+        public TempoProcessamento(String messageId, String grupo, Long duracaoMillis, String status) {
+            this.messageId = messageId;
+            this.grupo = grupo;
+            this.duracaoMillis = duracaoMillis;
+            this.status = status;
+        }
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public void setMessageId(String messageId) {
+            this.messageId = messageId;
+        }
+
+        public String getGrupo() {
+            return grupo;
+        }
+
+        public void setGrupo(String grupo) {
+            this.grupo = grupo;
+        }
+
+        public Long getDuracaoMillis() {
+            return duracaoMillis;
+        }
+
+        public void setDuracaoMillis(Long duracaoMillis) {
+            this.duracaoMillis = duracaoMillis;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package lambda.fase4.application.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+/**
+ * Notificação de uma avaliação urgente ou, quando quantidade está preenchida, resumo das avaliações
+ * urgentes agrupadas na janela de um restaurante (nota = pior nota, comentarios = piores comentários)
+ */
 public class NotificacaoUrgenciaDTO {
     private Long avaliacaoId;
     private String restaurante;
@@ -9,6 +14,12 @@ public class NotificacaoUrgenciaDTO {
     private String comentario;
     private LocalDateTime dataAvaliacao;
 
+    // Campos do resumo
+    private Integer quantidade;
+    private LocalDateTime inicioPeriodo;
+    private LocalDateTime fimPeriodo;
+    private List<String> comentarios;
+
     public NotificacaoUrgenciaDTO() {}
 
     public NotificacaoUrgenciaDTO(Long avaliacaoId, String restaurante, Integer nota,
@@ -60,5 +71,40 @@ public class NotificacaoUrgenciaDTO {
     public void setDataAvaliacao(LocalDateTime dataAvaliacao) {
         this.dataAvaliacao = dataAvaliacao;
     }
-}
 
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(Integer quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public LocalDateTime getInicioPeriodo() {
+        return inicioPeriodo;
+    }
+
+    public void setInicioPeriodo(LocalDateTime inicioPeriodo) {
+        this.inicioPeriodo = inicioPeriodo;
+    }
+
+    public LocalDateTime getFimPeriodo() {
+        return fimPeriodo;
+    }
+
+    public void setFimPeriodo(LocalDateTime fimPeriodo) {
+        this.fimPeriodo = fimPeriodo;
+    }
+
+    public List<String> getComentarios() {
+        return comentarios;
+    }
+
+    public void setComentarios(List<String> comentarios) {
+        this.comentarios = comentarios;
+    }
+
+    public boolean isResumo() {
+        return quantidade != null;
+    }
+}
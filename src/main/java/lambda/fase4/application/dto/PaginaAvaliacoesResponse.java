@@ -0,0 +1,42 @@
+package lambda.fase4.application.dto;
+
+import java.util.List;
+
+public class PaginaAvaliacoesResponse {
+    private List<AvaliacaoResponse> avaliacoes;
+    private Integer limite;
+    private Long proximoCursor; // null quando não há mais páginas
+
+    public PaginaAvaliacoesResponse() {}
+
+    public PaginaAvaliacoesResponse(List<AvaliacaoResponse> avaliacoes, Integer limite, Long proximoCursor) {
+        this.avaliacoes = avaliacoes;
+        this.limite = limite;
+        this.proximoCursor = proximoCursor;
+    }
+
+    // Getters and Setters
+    public List<AvaliacaoResponse> getAvaliacoes() {
+        return avaliacoes;
+    }
+
+    public void setAvaliacoes(List<AvaliacaoResponse> avaliacoes) {
+        this.avaliacoes = avaliacoes;
+    }
+
+    public Integer getLimite() {
+        return limite;
+    }
+
+    public void setLimite(Integer limite) {
+        this.limite = limite;
+    }
+
+    public Long getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public void setProximoCursor(Long proximoCursor) {
+        this.proximoCursor = proximoCursor;
+    }
+}
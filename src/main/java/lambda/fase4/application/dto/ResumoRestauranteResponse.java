@@ -0,0 +1,64 @@
+package lambda.fase4.application.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public class ResumoRestauranteResponse {
+    private String restaurante;
+    private Long totalAvaliacoes;
+    private Double mediaNotas;
+    private Map<Integer, Long> histograma; // nota -> quantidade, notas 1 a 5
+    private LocalDateTime ultimaAvaliacao;
+
+    public ResumoRestauranteResponse() {}
+
+    public ResumoRestauranteResponse(String restaurante, Long totalAvaliacoes, Double mediaNotas,
+                                     Map<Integer, Long> histograma, LocalDateTime ultimaAvaliacao) {
+        this.restaurante = restaurante;
+        this.totalAvaliacoes = totalAvaliacoes;
+        this.mediaNotas = mediaNotas;
+        this.histograma = histograma;
+        this.ultimaAvaliacao = ultimaAvaliacao;
+    }
+
+    // Getters and Setters
+    public String getRestaurante() {
+        return restaurante;
+    }
+
+    public void setRestaurante(String restaurante) {
+        this.restaurante = restaurante;
+    }
+
+    public Long getTotalAvaliacoes() {
+        return totalAvaliacoes;
+    }
+
+    public void setTotalAvaliacoes(Long totalAvaliacoes) {
+        this.totalAvaliacoes = totalAvaliacoes;
+    }
+
+    public Double getMediaNotas() {
+        return mediaNotas;
+    }
+
+    public void setMediaNotas(Double mediaNotas) {
+        this.mediaNotas = mediaNotas;
+    }
+
+    public Map<Integer, Long> getHistograma() {
+        return histograma;
+    }
+
+    public void setHistograma(Map<Integer, Long> histograma) {
+        this.histograma = histograma;
+    }
+
+    public LocalDateTime getUltimaAvaliacao() {
+        return ultimaAvaliacao;
+    }
+
+    public void setUltimaAvaliacao(LocalDateTime ultimaAvaliacao) {
+        this.ultimaAvaliacao = ultimaAvaliacao;
+    }
+}
@@ -2,58 +2,225 @@ package lambda.fase4.application.lambda;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import lambda.fase4.application.dto.NotificacaoBatchResponse;
 import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
-import lambda.fase4.infraestructure.LocalDateTimeAdapter;
+import lambda.fase4.domain.service.CloudWatchMetricsService;
+import lambda.fase4.domain.service.PublicadorAlertasSNS;
+import lambda.fase4.infraestructure.CodecsJson;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * Consome a fila de notificações urgentes reportando falhas parciais do lote
+ * (ReportBatchItemFailures): apenas as mensagens que falharam voltam para a fila.
+ * Registros de grupos diferentes (MessageGroupId ou restaurante) são processados em paralelo;
+ * dentro de um grupo a ordem é preservada e uma falha devolve o restante do grupo.
+ * Os alertas dos grupos em andamento são publicados juntos no SNS via PublishBatch.
+ */
+public class EnviarNotificacaoHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    @Inject
+    PublicadorAlertasSNS publicadorAlertas;
 
+    @Inject
+    RelatorioInicializacao inicializacao;
 
-public class EnviarNotificacaoHandler implements RequestHandler<SQSEvent, Map<String, Object>> {
+    @Inject
+    CloudWatchMetricsService metricsService;
+
+    private static final int CONCORRENCIA = Integer.parseInt(
+        System.getenv().getOrDefault("NOTIFICACAO_CONCORRENCIA", "10"));
+    // Folga antes do timeout da Lambda para montar a resposta
+    private static final long MARGEM_TIMEOUT_MILLIS = 1_000;
 
     private final Gson gson;
+    private final ExecutorService executor;
 
     public EnviarNotificacaoHandler() {
-        this.gson = new GsonBuilder()
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-            .create();
+        this.gson = CodecsJson.gson();
+        this.executor = Executors.newFixedThreadPool(Math.max(CONCORRENCIA, 1),
+            Thread.ofVirtual().name("notificacao-", 0).factory());
     }
 
     @Override
-    public Map<String, Object> handleRequest(SQSEvent event, Context context) {
-        Map<String, Object> response = new HashMap<>();
-        int processadas = 0;
-        int erros = 0;
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        long inicio = System.nanoTime();
+        Map<String, List<Registro>> grupos = agruparPorOrdem(event.getRecords());
+
+        Queue<SQSBatchResponse.BatchItemFailure> falhas = new ConcurrentLinkedQueue<>();
+        Queue<NotificacaoBatchResponse.TempoProcessamento> tempos = new ConcurrentLinkedQueue<>();
+        Set<String> concluidas = ConcurrentHashMap.newKeySet();
+
+        if (CONCORRENCIA <= 1 || grupos.size() <= 1) {
+            grupos.forEach((grupo, registros) ->
+                processarGrupo(grupo, registros, context, falhas, tempos, concluidas));
+        } else {
+            List<Future<?>> futuros = new ArrayList<>(grupos.size());
+            grupos.forEach((grupo, registros) -> futuros.add(executor.submit(() ->
+                processarGrupo(grupo, registros, context, falhas, tempos, concluidas))));
+            aguardar(futuros, context);
+        }
+
+        // Registros não concluídos dentro do prazo voltam para a fila
+        for (Map.Entry<String, List<Registro>> grupo : grupos.entrySet()) {
+            for (Registro registro : grupo.getValue()) {
+                String messageId = registro.message.getMessageId();
+                if (concluidas.add(messageId)) {
+                    falhas.add(new SQSBatchResponse.BatchItemFailure(messageId));
+                    tempos.add(new NotificacaoBatchResponse.TempoProcessamento(
+                        messageId, grupo.getKey(), 0L, NotificacaoBatchResponse.STATUS_NAO_PROCESSADA));
+                }
+            }
+        }
+
+        long duracaoTotal = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        context.getLogger().log(String.format("Processadas %d mensagens com %d erros em %d ms (%d grupos)",
+            event.getRecords().size() - falhas.size(), falhas.size(), duracaoTotal, grupos.size()));
+        context.getLogger().log(publicadorAlertas.getEstatisticas());
+
+        // O buffer de métricas não pode esperar o próximo flush: o ambiente congela após a resposta
+        metricsService.descarregar();
+        String relatorio = inicializacao.relatorioPendente();
+        if (relatorio != null) {
+            context.getLogger().log(relatorio);
+        }
+
+        return new NotificacaoBatchResponse(new ArrayList<>(falhas), new ArrayList<>(tempos), duracaoTotal);
+    }
 
-        for (SQSEvent.SQSMessage message : event.getRecords()) {
+    /**
+     * Agrupa mantendo a ordem de chegada dentro de cada grupo. O corpo é desserializado uma única vez.
+     */
+    private Map<String, List<Registro>> agruparPorOrdem(List<SQSEvent.SQSMessage> messages) {
+        Map<String, List<Registro>> grupos = new LinkedHashMap<>();
+        for (SQSEvent.SQSMessage message : messages) {
+            Registro registro = new Registro(message);
             try {
-                String body = message.getBody();
-                NotificacaoUrgenciaDTO notificacao = gson.fromJson(body, NotificacaoUrgenciaDTO.class);
+                registro.notificacao = gson.fromJson(message.getBody(), NotificacaoUrgenciaDTO.class);
+            } catch (Exception e) {
+                registro.erro = e;
+            }
+            grupos.computeIfAbsent(chaveOrdenacao(registro), k -> new ArrayList<>()).add(registro);
+        }
+        return grupos;
+    }
 
-                // Formatar notificação
-                String titulo = String.format("🚨 Avaliação Urgente - %s", notificacao.getRestaurante());
-                String mensagem = formatarNotificacao(notificacao);
+    private String chaveOrdenacao(Registro registro) {
+        Map<String, String> atributos = registro.message.getAttributes();
+        if (atributos != null && atributos.get("MessageGroupId") != null) {
+            return atributos.get("MessageGroupId");
+        }
+        if (registro.notificacao != null && registro.notificacao.getRestaurante() != null) {
+            return registro.notificacao.getRestaurante();
+        }
+        return registro.message.getMessageId();
+    }
 
-                // TODO: Enviar via SNS quando configurado
-                context.getLogger().log("Notificação: " + titulo);
+    private void processarGrupo(String grupo, List<Registro> registros, Context context,
+                                Queue<SQSBatchResponse.BatchItemFailure> falhas,
+                                Queue<NotificacaoBatchResponse.TempoProcessamento> tempos,
+                                Set<String> concluidas) {
+        boolean interromper = false;
 
-                processadas++;
+        for (Registro registro : registros) {
+            String messageId = registro.message.getMessageId();
+            // Prazo esgotado: o restante fica para a verificação final em handleRequest
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            // Após uma falha o restante do grupo também volta, preservando a ordem
+            if (interromper) {
+                if (concluidas.add(messageId)) {
+                    falhas.add(new SQSBatchResponse.BatchItemFailure(messageId));
+                    tempos.add(new NotificacaoBatchResponse.TempoProcessamento(
+                        messageId, grupo, 0L, NotificacaoBatchResponse.STATUS_NAO_PROCESSADA));
+                }
+                continue;
+            }
 
+            long inicio = System.nanoTime();
+            String status = NotificacaoBatchResponse.STATUS_PROCESSADA;
+            boolean falhou = false;
+            try {
+                processarRegistro(registro, context);
             } catch (Exception e) {
-                erros++;
+                context.getLogger().log(String.format("Erro ao processar mensagem %s: %s",
+                    messageId, e.getMessage()));
+                status = NotificacaoBatchResponse.STATUS_ERRO;
+                falhou = true;
+                interromper = true;
             }
+            long duracao = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            if (concluidas.add(messageId)) {
+                if (falhou) {
+                    falhas.add(new SQSBatchResponse.BatchItemFailure(messageId));
+                }
+                tempos.add(new NotificacaoBatchResponse.TempoProcessamento(messageId, grupo, duracao, status));
+            }
+        }
+    }
+
+    private void processarRegistro(Registro registro, Context context) throws Exception {
+        if (registro.erro != null) {
+            throw registro.erro;
         }
+        NotificacaoUrgenciaDTO notificacao = registro.notificacao;
 
-        response.put("statusCode", 200);
-        response.put("processadas", processadas);
-        response.put("erros", erros);
-        response.put("message", String.format("Processadas %d mensagens com %d erros", processadas, erros));
+        // Formatar notificação (individual ou resumo da janela do restaurante)
+        String titulo = notificacao.isResumo()
+            ? String.format("🚨 %d Avaliações Urgentes - %s", notificacao.getQuantidade(), notificacao.getRestaurante())
+            : String.format("🚨 Avaliação Urgente - %s", notificacao.getRestaurante());
+        String mensagem = notificacao.isResumo()
+            ? formatarResumo(notificacao)
+            : formatarNotificacao(notificacao);
 
-        return response;
+        try {
+            // Aguarda a confirmação antes do próximo registro do grupo, mantendo a ordem
+            publicadorAlertas.publicar(titulo, mensagem).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro ao publicar no SNS: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        context.getLogger().log("Notificação publicada: " + titulo);
+    }
+
+    private void aguardar(List<Future<?>> futuros, Context context) {
+        long prazo = System.currentTimeMillis()
+            + Math.max(context.getRemainingTimeInMillis() - MARGEM_TIMEOUT_MILLIS, 0);
+        for (Future<?> futuro : futuros) {
+            try {
+                futuro.get(Math.max(prazo - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                futuro.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futuro.cancel(true);
+            } catch (ExecutionException e) {
+                context.getLogger().log("Erro inesperado no processamento do grupo: " + e.getCause());
+            }
+        }
     }
 
     private String formatarNotificacao(NotificacaoUrgenciaDTO notificacao) {
@@ -73,5 +240,36 @@ public class EnviarNotificacaoHandler implements RequestHandler<SQSEvent, Map<St
 
         return sb.toString();
     }
-}
 
+    private String formatarResumo(NotificacaoUrgenciaDTO resumo) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(resumo.getQuantidade()).append(" novas avaliações urgentes após o último alerta!\n\n");
+        sb.append("🏪 Restaurante: ").append(resumo.getRestaurante()).append("\n");
+        sb.append("⭐ Pior nota: ").append(resumo.getNota()).append("/5\n");
+        sb.append("📅 Período: ").append(resumo.getInicioPeriodo())
+            .append(" a ").append(resumo.getFimPeriodo()).append("\n\n");
+
+        if (resumo.getComentarios() != null && !resumo.getComentarios().isEmpty()) {
+            sb.append("💬 Piores comentários:\n");
+            for (String comentario : resumo.getComentarios()) {
+                sb.append("- ").append(comentario).append("\n");
+            }
+            sb.append("\n");
+        }
+
+        sb.append("⚠️ Estas avaliações requerem atenção imediata!");
+
+        return sb.toString();
+    }
+
+    private static final class Registro {
+        private final SQSEvent.SQSMessage message;
+        private NotificacaoUrgenciaDTO notificacao;
+        private Exception erro;
+
+        private Registro(SQSEvent.SQSMessage message) {
+            this.message = message;
+        }
+    }
+}
@@ -4,12 +4,18 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import lambda.fase4.infraestructure.LocalDateTimeAdapter;
+import lambda.fase4.infraestructure.CodecsJson;
+import lambda.fase4.infraestructure.FalhaConexaoBanco;
+import lambda.fase4.infraestructure.MetricasConexaoBanco;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
 import lambda.fase4.domain.model.Avaliacao;
 import lambda.fase4.domain.repository.AvaliacaoRepository;
+import lambda.fase4.domain.repository.ResumoDiarioRepository;
+import lambda.fase4.domain.service.AcumuladorEstatisticas;
+import lambda.fase4.domain.service.CloudWatchMetricsService;
+import lambda.fase4.domain.service.EmailConfig;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -22,61 +28,57 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
     @Inject
     AvaliacaoRepository avaliacaoRepository;
 
+    @Inject
+    ResumoDiarioRepository resumoDiarioRepository;
+
+    @Inject
+    RelatorioInicializacao inicializacao;
+
+    @Inject
+    MetricasConexaoBanco metricasConexao;
+
+    @Inject
+    CloudWatchMetricsService metricsService;
+
     private final Gson gson;
-    private boolean usarBancoDados = true;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
     public GerarRelatorioHandler() {
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this.gson = CodecsJson.gson();
     }
 
+    /**
+     * Lê o período na transação de carregarDados e só depois envia o email, fora dela: nenhuma
+     * conexão do pool fica presa durante o SMTP. Falha de banco responde 503 (conexão) ou 500,
+     * sem enviar nada.
+     */
     @Override
-    @Transactional
     public Map<String, Object> handleRequest(ScheduledEvent event, Context context) {
         Map<String, Object> response = new HashMap<>();
 
         try {
             context.getLogger().log("=== Iniciando geração de relatório semanal ===");
 
-            // Período: últimos 7 dias
+            // Período: 7 dias contando o atual, desde a meia-noite do primeiro (granularidade do rollup diário)
             LocalDateTime fim = LocalDateTime.now();
-            LocalDateTime inicio = fim.minusDays(7);
+            LocalDateTime inicio = fim.toLocalDate().minusDays(6).atStartOfDay();
 
             context.getLogger().log(String.format("Período: %s até %s",
                 inicio.format(DATE_FORMATTER), fim.format(DATE_FORMATTER)));
 
-            List<Avaliacao> avaliacoes;
-
+            DadosRelatorio dados;
             try {
-                if (usarBancoDados && avaliacaoRepository != null) {
-                    // MODO PRODUÇÃO: Consulta banco PostgreSQL/RDS
-                    context.getLogger().log("Consultando RDS PostgreSQL...");
-                    context.getLogger().log(String.format("Database: %s@%s:%s/%s",
-                        System.getenv().getOrDefault("DB_USERNAME", "postgres"),
-                        System.getenv().getOrDefault("DB_HOST", "localhost"),
-                        System.getenv().getOrDefault("DB_PORT", "5432"),
-                        System.getenv().getOrDefault("DB_NAME", "feedback_db")));
-
-                    avaliacoes = avaliacaoRepository.findByPeriodo(inicio, fim);
-
-                    context.getLogger().log(String.format("✓ Consulta SQL executada: %d avaliações encontradas", avaliacoes.size()));
-                    context.getLogger().log("✓ Query: SELECT * FROM Avaliacao WHERE dataAvaliacao BETWEEN ? AND ?");
-
-                } else {
-                    throw new Exception("Banco de dados não disponível");
-                }
-            } catch (Exception dbException) {
-                // MODO DEMONSTRAÇÃO: Fallback para simulação
-                context.getLogger().log("⚠️ Banco de dados não disponível, usando dados simulados");
-                context.getLogger().log("Consultando RDS PostgreSQL (SIMULADO)...");
-
-                usarBancoDados = false;
+                dados = carregarDados(inicio, fim, context);
+            } catch (RuntimeException dbException) {
+                context.getLogger().log("Erro ao consultar o banco, relatório não enviado: " + dbException.getMessage());
+                dbException.printStackTrace();
+                response.put("statusCode", FalhaConexaoBanco.indisponivel(dbException) ? 503 : 500);
+                response.put("error", "Erro ao consultar o banco: " + dbException.getMessage());
+                return finalizar(response, context);
             }
 
             // Gerar estatísticas do relatório
-            Map<String, Object> relatorio = gerarEstatisticas(null, inicio, fim, context);
+            Map<String, Object> relatorio = gerarEstatisticas(dados.acumulador(), dados.negativas(), inicio, fim, context);
 
             // Formatar email
             String assunto = "📊 Relatório Semanal de Feedbacks - " +
@@ -86,7 +88,7 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
             context.getLogger().log("Enviando relatório via Amazon SES...");
 
             String adminEmail = System.getenv().getOrDefault("SES_ADMIN_EMAILS", "admin@feedback-system.com");
-            String messageId = SimulatedSESService.enviarRelatorioSemanal(
+            String messageId = EmailConfig.getEmailService().enviarRelatorioSemanal(
                 adminEmail,
                 assunto,
                 corpoEmail
@@ -99,7 +101,6 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
             response.put("message", "Relatório gerado e enviado com sucesso");
             response.put("relatorio", relatorio);
             response.put("emailMessageId", messageId);
-            response.put("dataSource", usarBancoDados ? "PostgreSQL RDS" : "Simulação em Memória");
 
         } catch (Exception e) {
             context.getLogger().log("Erro ao gerar/enviar relatório: " + e.getMessage());
@@ -108,10 +109,67 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
             response.put("error", e.getMessage());
         }
 
+        return finalizar(response, context);
+    }
+
+    /**
+     * Rollup diário e avaliações críticas do período, somente leitura; as entidades
+     * retornadas já estão desanexadas quando o email é montado
+     */
+    @Transactional
+    DadosRelatorio carregarDados(LocalDateTime inicio, LocalDateTime fim, Context context) {
+        context.getLogger().log("Consultando RDS PostgreSQL...");
+        context.getLogger().log(String.format("Database: %s@%s:%s/%s",
+            System.getenv().getOrDefault("DB_USERNAME", "postgres"),
+            System.getenv().getOrDefault("DB_HOST", "localhost"),
+            System.getenv().getOrDefault("DB_PORT", "5432"),
+            System.getenv().getOrDefault("DB_NAME", "feedback_db")));
+
+        AcumuladorEstatisticas acumulador = new AcumuladorEstatisticas();
+        resumoDiarioRepository.listarPorPeriodo(inicio.toLocalDate(), fim.toLocalDate())
+            .forEach(acumulador::adicionar);
+        List<Avaliacao> negativas = avaliacaoRepository.findNegativasByPeriodo(inicio, fim);
+
+        context.getLogger().log(String.format("✓ Rollup diário consultado: %d restaurantes, %d avaliações críticas",
+            acumulador.getQuantidadeRestaurantes(), negativas.size()));
+        context.getLogger().log("✓ Query: SELECT * FROM resumo_diario_restaurante WHERE dia BETWEEN ? AND ?");
+        return new DadosRelatorio(acumulador, negativas);
+    }
+
+    private Map<String, Object> finalizar(Map<String, Object> response, Context context) {
+        // O buffer de métricas não pode esperar o próximo flush: o ambiente congela após a resposta
+        metricsService.descarregar();
+        String pool = metricasConexao.publicar(context.getFunctionName());
+        if (pool != null) {
+            context.getLogger().log(pool);
+        }
+        String relatorio = inicializacao.relatorioPendente();
+        if (relatorio != null) {
+            context.getLogger().log(relatorio);
+        }
         return response;
     }
 
-    private Map<String, Object> gerarEstatisticas(List<Avaliacao> avaliacoes, LocalDateTime inicio, LocalDateTime fim, Context context) {
+    record DadosRelatorio(AcumuladorEstatisticas acumulador, List<Avaliacao> negativas) {
+    }
+
+    /**
+     * Executa o cálculo e a formatação do relatório sobre dados sintéticos, sem banco nem envio
+     * (priming antes do snapshot da função)
+     */
+    void aquecer(Context context) {
+        AcumuladorEstatisticas acumulador = new AcumuladorEstatisticas();
+        for (int i = 0; i < 50; i++) {
+            acumulador.adicionar("Priming " + (i % 5), i % 5 + 1);
+        }
+        List<Avaliacao> negativas = List.of(new Avaliacao("Priming 0", 1, "priming", null));
+        LocalDateTime fim = LocalDateTime.now();
+        formatarRelatorioHTML(gerarEstatisticas(acumulador, negativas, fim.minusDays(6), fim, context));
+    }
+
+    private Map<String, Object> gerarEstatisticas(AcumuladorEstatisticas acumulador,
+                                                  List<Avaliacao> negativas,
+                                                  LocalDateTime inicio, LocalDateTime fim, Context context) {
         Map<String, Object> stats = new HashMap<>();
 
         context.getLogger().log("Processando estatísticas...");
@@ -119,9 +177,9 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
         // Informações gerais
         stats.put("periodo_inicio", inicio.format(DATE_FORMATTER));
         stats.put("periodo_fim", fim.format(DATE_FORMATTER));
-        stats.put("total_avaliacoes", avaliacoes.size());
+        stats.put("total_avaliacoes", acumulador.getTotal());
 
-        if (avaliacoes.isEmpty()) {
+        if (acumulador.getTotal() == 0) {
             context.getLogger().log("⚠️ Nenhuma avaliação encontrada no período");
             stats.put("media_notas", 0.0);
             stats.put("avaliacoes_por_restaurante", new HashMap<>());
@@ -130,24 +188,24 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
             return stats;
         }
 
-        double media = avaliacoes.stream()
-                .mapToInt(Avaliacao::getNota)
-                .average()
-                .orElse(0.0);
+        double media = acumulador.getMedia();
         stats.put("media_notas", Math.round(media * 100.0) / 100.0);
         context.getLogger().log(String.format("Média de notas calculada: %.2f", media));
 
-        Map<String, Long> porRestaurante = avaliacoes.stream()
-                .collect(Collectors.groupingBy(Avaliacao::getRestaurante, Collectors.counting()));
+        Map<String, Long> porRestaurante = new HashMap<>();
+        acumulador.forEachRestaurante(porRestaurante::put);
         stats.put("avaliacoes_por_restaurante", porRestaurante);
         context.getLogger().log(String.format("Restaurantes únicos: %d", porRestaurante.size()));
 
-        Map<Integer, Long> distribuicaoNotas = avaliacoes.stream()
-                .collect(Collectors.groupingBy(Avaliacao::getNota, Collectors.counting()));
+        Map<Integer, Long> distribuicaoNotas = new HashMap<>();
+        for (int nota = 1; nota <= 5; nota++) {
+            if (acumulador.getContagemNota(nota) > 0) {
+                distribuicaoNotas.put(nota, acumulador.getContagemNota(nota));
+            }
+        }
         stats.put("distribuicao_notas", distribuicaoNotas);
 
-        List<Map<String, Object>> negativos = avaliacoes.stream()
-                .filter(a -> a.getNota() <= 2)
+        List<Map<String, Object>> negativos = negativas.stream()
                 .map(a -> {
                     Map<String, Object> neg = new HashMap<>();
                     neg.put("restaurante", a.getRestaurante());
@@ -161,9 +219,7 @@ public class GerarRelatorioHandler implements RequestHandler<ScheduledEvent, Map
         stats.put("comentarios_negativos", negativos);
         context.getLogger().log(String.format("⚠️ Avaliações críticas (≤2): %d", negativos.size()));
 
-        List<Map<String, Object>> topRestaurantes = porRestaurante.entrySet().stream()
-                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-                .limit(3)
+        List<Map<String, Object>> topRestaurantes = acumulador.topRestaurantes(3).stream()
                 .map(e -> {
                     Map<String, Object> top = new HashMap<>();
                     top.put("restaurante", e.getKey());
@@ -0,0 +1,298 @@
+package lambda.fase4.application.lambda;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.google.gson.Gson;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lambda.fase4.application.dto.AvaliacaoRequest;
+import lambda.fase4.application.dto.AvaliacaoResponse;
+import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
+import lambda.fase4.domain.model.ProjecaoWatermark;
+import lambda.fase4.domain.repository.AvaliacaoRepository;
+import lambda.fase4.domain.repository.ResumoDiarioRepository;
+import lambda.fase4.domain.service.AvaliacaoService;
+import lambda.fase4.domain.service.CloudWatchMetricsService;
+import lambda.fase4.domain.service.EmailConfig;
+import lambda.fase4.domain.service.NotificacaoOutboxRelay;
+import lambda.fase4.domain.service.PublicadorAlertasSNS;
+import lambda.fase4.infraestructure.CodecsJson;
+import lambda.fase4.infraestructure.MetricasConexaoBanco;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
+import org.crac.Core;
+import org.crac.Resource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Priming para checkpoint/restore (SnapStart ou JVM com CRaC): antes do snapshot exercita os
+ * caminhos quentes (metadados do Hibernate, codecs JSON, templates de email e estatísticas do
+ * relatório), drena os buffers (emails, alertas SNS, métricas) e fecha as conexões; após a
+ * restauração reabre as conexões de banco e, com priming.smtp=true, SMTP.
+ * Em JVM sem CRaC os hooks nunca são chamados; priming.na-inicializacao=true executa o mesmo
+ * aquecimento no boot, para comparar a primeira invocação com e sem priming.
+ */
+@ApplicationScoped
+public class PrimingSnapshot implements Resource {
+
+    private static final Logger LOG = Logger.getLogger(PrimingSnapshot.class);
+
+    private static final String AVALIACAO_JSON =
+        "{\"restaurante\":\"Priming\",\"nota\":1,\"comentario\":\"priming\",\"emailCliente\":\"priming@example.com\"}";
+    private static final Duration PRAZO_DRENAGEM = Duration.ofSeconds(10);
+    private static final String LOTE_JSON = "[" + AVALIACAO_JSON + "," + AVALIACAO_JSON + "]";
+    private static final String NOTIFICACAO_JSON =
+        "{\"avaliacaoId\":1,\"restaurante\":\"Priming\",\"nota\":1,\"comentario\":\"priming\",\"dataAvaliacao\":\"2024-01-01T12:00:00\"}";
+
+    @Inject
+    AvaliacaoRepository avaliacaoRepository;
+
+    @Inject
+    ResumoDiarioRepository resumoDiarioRepository;
+
+    @Inject
+    Instance<AgroalDataSource> dataSource;
+
+    @Inject
+    GerarRelatorioHandler gerarRelatorioHandler;
+
+    @Inject
+    RelatorioInicializacao inicializacao;
+
+    @Inject
+    CloudWatchMetricsService metricsService;
+
+    @Inject
+    PublicadorAlertasSNS publicadorAlertas;
+
+    @Inject
+    NotificacaoOutboxRelay outboxRelay;
+
+    @Inject
+    MetricasConexaoBanco metricasConexao;
+
+    @Inject
+    AvaliacaoService avaliacaoService;
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.active", defaultValue = "true")
+    boolean bancoAtivo;
+
+    // Iterações dos trechos aquecidos: o suficiente para o JIT compilar os métodos quentes
+    @ConfigProperty(name = "priming.iteracoes", defaultValue = "1000")
+    int iteracoes;
+
+    @ConfigProperty(name = "priming.na-inicializacao", defaultValue = "false")
+    boolean naInicializacao;
+
+    // Apenas a função que envia emails (ReceberFeedback) liga: pré-conectar nas demais abriria
+    // uma sessão SMTP autenticada a cada restauração sem nunca usá-la
+    @ConfigProperty(name = "priming.smtp", defaultValue = "false")
+    boolean smtp;
+
+    void aoIniciar(@Observes StartupEvent event) {
+        // O contexto global guarda referência fraca: o bean ApplicationScoped mantém o registro vivo
+        Core.getGlobalContext().register(this);
+        if (naInicializacao) {
+            inicializacao.registrar("Priming (na inicialização)", medir(this::aquecer) + " ms");
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        inicializacao.registrar("Priming (antes do checkpoint)", medir(this::aquecer) + " ms");
+        inicializacao.registrar("Drenagem (antes do checkpoint)", medir(this::drenar) + " ms");
+
+        // Sockets não sobrevivem à restauração: nada de conexão aberta no snapshot
+        if (bancoAtivo) {
+            dataSource.get().flush(AgroalDataSource.FlushMode.ALL);
+        }
+        EmailConfig.getEmailService().fechar();
+
+        // O uso do priming não entra nas métricas da primeira invocação após a restauração
+        executarEtapa("Contadores do pool e dos caches", () -> {
+            metricasConexao.descartarContagem();
+            avaliacaoService.descartarMetricasCache();
+        });
+    }
+
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        inicializacao.registrar("Reconexão (após restauração)", medir(this::reconectar) + " ms");
+        executarEtapa("Contadores do pool", () -> metricasConexao.descartarContagem());
+    }
+
+    /**
+     * Nada pendente em memória ou em threads à espera entra no snapshot: um snapshot é
+     * restaurado em vários ambientes, e o que estivesse nele seria enviado por cada um
+     */
+    void drenar() {
+        executarEtapa("Fila de emails", () -> {
+            if (!EmailConfig.aguardarFilaEnvioEmail(PRAZO_DRENAGEM)) {
+                LOG.warn("Priming: emails ainda pendentes no checkpoint");
+            }
+        });
+        executarEtapa("Alertas SNS", () -> publicadorAlertas.drenar());
+        // As janelas de agrupamento ficam no outbox; em memória só há o envio agendado pelo linger
+        if (bancoAtivo) {
+            executarEtapa("Outbox de notificações", () -> outboxRelay.aguardarEnvioAgendado());
+        }
+        executarEtapa("Métricas CloudWatch", () -> metricsService.descarregar());
+    }
+
+    void aquecer() {
+        if (bancoAtivo) {
+            executarEtapa("Hibernate ORM", this::carregarMetadadosHibernate);
+        }
+        executarEtapa("JSON", this::aquecerJson);
+        executarEtapa("Templates de email", () -> EmailConfig.getEmailService().aquecerTemplates());
+        executarEtapa("Estatísticas do relatório", () -> {
+            for (int i = 0; i < iteracoes; i++) {
+                gerarRelatorioHandler.aquecer(CONTEXTO_PRIMING);
+            }
+        });
+    }
+
+    /**
+     * Monta o metamodelo e compila as consultas quentes chamando os próprios métodos do
+     * repositório: limite 0 (setMaxResults(0), o Hibernate não vai ao banco) ou período vazio.
+     * Assim o HQL compilado é sempre o que as invocações usam.
+     */
+    @Transactional
+    void carregarMetadadosHibernate() {
+        avaliacaoRepository.getEntityManager().getMetamodel().getEntities();
+        avaliacaoRepository.listarAPartirDe(0L, 0);
+        avaliacaoRepository.findByRestaurante("Priming", 0L, 0);
+        avaliacaoRepository.listarAposWatermark(ProjecaoWatermark.INICIO, 0L, ProjecaoWatermark.INICIO, 0);
+        // Início depois do fim: nenhuma linha
+        avaliacaoRepository.findNegativasByPeriodo(ProjecaoWatermark.INICIO.plusDays(1), ProjecaoWatermark.INICIO);
+        resumoDiarioRepository.listarPorPeriodo(ProjecaoWatermark.INICIO.toLocalDate().plusDays(1),
+            ProjecaoWatermark.INICIO.toLocalDate());
+    }
+
+    private void aquecerJson() {
+        Gson gson = CodecsJson.gson();
+        AvaliacaoResponse response = new AvaliacaoResponse(1L, "Priming", 1, "priming",
+            LocalDateTime.now(), "priming@example.com");
+        for (int i = 0; i < iteracoes; i++) {
+            gson.fromJson(AVALIACAO_JSON, AvaliacaoRequest.class);
+            gson.fromJson(LOTE_JSON, AvaliacaoRequest[].class);
+            gson.fromJson(NOTIFICACAO_JSON, NotificacaoUrgenciaDTO.class);
+            gson.toJson(response);
+        }
+    }
+
+    private void reconectar() {
+        if (bancoAtivo) {
+            executarEtapa("Conexão com o banco", () -> {
+                try (Connection connection = dataSource.get().getConnection()) {
+                    connection.isValid(2);
+                }
+            });
+        }
+        if (smtp) {
+            executarEtapa("Conexão SMTP", () -> EmailConfig.getEmailService().preconectar());
+        }
+    }
+
+    // Falha em uma etapa não impede o snapshot: o caminho correspondente só fica frio
+    private void executarEtapa(String etapa, Etapa execucao) {
+        long inicio = System.nanoTime();
+        try {
+            execucao.executar();
+            LOG.infof("Priming: %s em %d ms", etapa, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } catch (Exception e) {
+            LOG.warnf(e, "Priming: falha em %s", etapa);
+        }
+    }
+
+    private static long medir(Runnable execucao) {
+        long inicio = System.nanoTime();
+        execucao.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    }
+
+    @FunctionalInterface
+    private interface Etapa {
+        void executar() throws Exception;
+    }
+
+    // Context mínimo para chamar o código dos handlers fora de uma invocação; descarta o log
+    private static final Context CONTEXTO_PRIMING = new Context() {
+        private final LambdaLogger logger = new LambdaLogger() {
+            @Override
+            public void log(String message) {
+            }
+
+            @Override
+            public void log(byte[] message) {
+            }
+        };
+
+        @Override
+        public String getAwsRequestId() {
+            return "priming";
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return null;
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "priming";
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return null;
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return null;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 0;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return logger;
+        }
+    };
+}
@@ -3,17 +3,34 @@ package lambda.fase4.application.lambda;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import lambda.fase4.application.dto.AvaliacaoRequest;
 import lambda.fase4.application.dto.AvaliacaoResponse;
-import lambda.fase4.infraestructure.LocalDateTimeAdapter;
+import lambda.fase4.application.dto.LoteAvaliacaoResponse;
+import lambda.fase4.infraestructure.CodecsJson;
+import lambda.fase4.infraestructure.FalhaConexaoBanco;
+import lambda.fase4.infraestructure.MetricasConexaoBanco;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
 import lambda.fase4.domain.model.Avaliacao;
 import lambda.fase4.domain.repository.AvaliacaoRepository;
+import lambda.fase4.domain.service.AvaliacaoService;
+import lambda.fase4.domain.service.CloudWatchMetricsService;
+import lambda.fase4.domain.service.EmailConfig;
+import lambda.fase4.domain.service.FilaEnvioEmail;
+import lambda.fase4.domain.service.NotificacaoService;
+import lambda.fase4.domain.service.ResumoDiarioService;
 
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
-import java.time.LocalDateTime;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ReceberFeedbackHandler implements RequestHandler<Map<String, Object>, Map<String, Object>> {
@@ -21,30 +38,117 @@ public class ReceberFeedbackHandler implements RequestHandler<Map<String, Object
     @Inject
     AvaliacaoRepository avaliacaoRepository;
 
+    @Inject
+    AvaliacaoService avaliacaoService;
+
+    @Inject
+    ResumoDiarioService resumoDiarioService;
+
+    @Inject
+    NotificacaoService notificacaoService;
+
+    @Inject
+    RelatorioInicializacao inicializacao;
+
+    @Inject
+    MetricasConexaoBanco metricasConexao;
+
+    @Inject
+    CloudWatchMetricsService metricsService;
+
+    @Inject
+    Event<EmailsAvaliacao> avaliacaoGravada;
+
+    @ConfigProperty(name = "aws.ses.admin.emails", defaultValue = "admin@feedback-system.com")
+    String adminEmail;
+
+    @ConfigProperty(name = "email.fila.espera-fim-invocacao", defaultValue = "2s")
+    Duration esperaFimInvocacao;
+
+    private static final Logger LOG = Logger.getLogger(ReceberFeedbackHandler.class);
+    private static final Duration ESPERA_FILA_EMAIL = Duration.ofMillis(100);
+
+    // Emails de uma avaliação gravada, enfileirados só depois do commit
+    record EmailsAvaliacao(String restaurante, Integer nota, String comentario, String emailCliente) {}
+
     private final Gson gson;
 
     public ReceberFeedbackHandler() {
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .create();
+        this.gson = CodecsJson.gson();
     }
 
+    // Sem transação aqui: gravar() faz o commit antes de registrarFimInvocacao() drenar os emails
     @Override
-    @Transactional
     public Map<String, Object> handleRequest(Map<String, Object> input, Context context) {
-        Map<String, Object> response = new HashMap<>();
-
         try {
             context.getLogger().log("=== Recebendo novo feedback ===");
-            
-            // Parse do body (pode vir de API Gateway)
-            String body = input.get("body") != null ?
-                    input.get("body").toString() : gson.toJson(input);
 
-            AvaliacaoRequest request = gson.fromJson(body, AvaliacaoRequest.class);
+            // Body do API Gateway, ou o próprio evento em invocação direta (sem passar por String)
+            Object body = input.get("body");
+            if (body == null) {
+                return processar(gson.fromJson(gson.toJsonTree(input), AvaliacaoRequest.class), context);
+            }
+
+            // Modo lote: body com array JSON de avaliações
+            String json = body.toString();
+            if (json.stripLeading().startsWith("[")) {
+                return processarLote(Arrays.asList(gson.fromJson(json, AvaliacaoRequest[].class)), context);
+            }
+
+            return processar(gson.fromJson(json, AvaliacaoRequest.class), context);
+
+        } catch (Exception e) {
+            return erroInterno(e, context);
+        } finally {
+            registrarFimInvocacao(context);
+        }
+    }
+
+    /**
+     * Aguarda os emails da invocação (enfileirados após o commit) por no máximo
+     * email.fila.espera-fim-invocacao, já que o ambiente congela após a resposta, e publica o
+     * buffer de métricas do CloudWatch; depois, uso do pool de conexões e, só na primeira, o relatório de inicialização
+     */
+    void registrarFimInvocacao(Context context) {
+        FilaEnvioEmail filaEmail = EmailConfig.getFilaEnvioEmail();
+        if (filaEmail.getPendentes() > 0 && !filaEmail.aguardarPendentes(esperaFimInvocacao)) {
+            context.getLogger().log(String.format("⚠️ %d emails ainda pendentes ao fim da invocação",
+                filaEmail.getPendentes()));
+        }
+        context.getLogger().log(filaEmail.getEstatisticas());
 
-            // Validar request
+        metricsService.descarregar();
+        String pool = metricasConexao.publicar(context.getFunctionName());
+        if (pool != null) {
+            context.getLogger().log(pool);
+        }
+        String relatorio = inicializacao.relatorioPendente();
+        if (relatorio != null) {
+            context.getLogger().log(relatorio);
+        }
+    }
+
+    /**
+     * Processa uma avaliação já desserializada: usado também pelo ReceberFeedbackStreamHandler.
+     * A resposta só é montada depois do commit de gravar(); falha de banco responde 503
+     * (conexão indisponível) ou 500, nunca 200 sem a avaliação persistida.
+     */
+    public Map<String, Object> processar(AvaliacaoRequest request, Context context) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
             validarAvaliacao(request);
+        } catch (IllegalArgumentException e) {
+            context.getLogger().log("Erro de validação: " + e.getMessage());
+            response.put("statusCode", 400);
+            response.put("body", gson.toJson(Map.of(
+                    "error", "Erro de validação",
+                    "message", e.getMessage()
+            )));
+            return response;
+        }
+
+        try {
             context.getLogger().log(String.format("Request validado: %s - Nota: %d", 
                 request.getRestaurante(), request.getNota()));
 
@@ -55,24 +159,9 @@ public class ReceberFeedbackHandler implements RequestHandler<Map<String, Object
                 request.getEmailCliente()
             );
 
+            gravar(avaliacao, context);
+            context.getLogger().log("✓ Transação commitada no PostgreSQL");
 
-            try {
-                    context.getLogger().log("Conectando ao RDS PostgreSQL...");
-                    context.getLogger().log(String.format("Database URL: %s", 
-                        System.getenv().getOrDefault("DB_HOST", "localhost") + ":" + 
-                        System.getenv().getOrDefault("DB_PORT", "5432")));
-                    
-                    avaliacaoRepository.persist(avaliacao);
-                    
-                    context.getLogger().log(String.format("✓ Avaliação persistida no RDS com ID: %d", avaliacao.getId()));
-                    context.getLogger().log("✓ Transação commitada no PostgreSQL");
-                    
-
-            } catch (Exception dbException) {
-                context.getLogger().log("⚠️ Aviso: Não foi possível conectar ao banco de dados. "
-                        + "Operação será simulada sem persistência. Erro: " + dbException.getMessage());
-            }
-            
             AvaliacaoResponse avaliacaoResponse = new AvaliacaoResponse(
                     avaliacao.getId(),
                     avaliacao.getRestaurante(),
@@ -89,87 +178,119 @@ public class ReceberFeedbackHandler implements RequestHandler<Map<String, Object
                     "Access-Control-Allow-Origin", "*"
             ));
 
+        } catch (Exception e) {
+            return erroInterno(e, context);
+        }
 
-            try {
-                context.getLogger().log("Iniciando envio de emails via Amazon SES...");
-                
-                // 1. Enviar email de confirmação para o cliente
-                if (request.getEmailCliente() != null && !request.getEmailCliente().trim().isEmpty()) {
-                    context.getLogger().log("📧 Enviando confirmação para cliente: " + request.getEmailCliente());
-                    
-                    String messageId = SimulatedSESService.enviarConfirmacaoAvaliacao(
-                            request.getEmailCliente(),
-                            request.getRestaurante(),
-                            request.getNota(),
-                            request.getComentario()
-                    );
-                    
-                    context.getLogger().log("✓ Email confirmação enviado! MessageId: " + messageId);
-                }
-
-                // 2. Enviar notificação para o admin
-                String adminEmail = System.getenv().getOrDefault("SES_ADMIN_EMAILS", "admin@feedback-system.com");
-                context.getLogger().log("📧 Enviando notificação para admin: " + adminEmail);
-                
-                String adminMessageId = SimulatedSESService.enviarNotificacaoAdmin(
-                        adminEmail,
-                        request.getRestaurante(),
-                        request.getNota(),
-                        request.getComentario(),
-                        request.getEmailCliente()
-                );
-                
-                context.getLogger().log("✓ Notificação admin enviada! MessageId: " + adminMessageId);
-
-                // 3. Se URGENTE (nota <= 2), enviar alerta crítico
-                if (request.getNota() != null && request.getNota() <= 2) {
-                    context.getLogger().log("🚨 ALERTA: Avaliação crítica detectada (nota " + request.getNota() + ")");
-                    context.getLogger().log("📧 Enviando email de ALERTA URGENTE para: " + adminEmail);
-
-                    String alertMessageId = SimulatedSESService.enviarAlertaAvaliacaoBaixa(
-                            adminEmail,
-                            request.getRestaurante(),
-                            request.getNota(),
-                            request.getComentario(),
-                            request.getEmailCliente()
-                    );
-
-                    context.getLogger().log("✓ Email de alerta urgente enviado! MessageId: " + alertMessageId);
-                    
-                    // Simulação de envio para SQS
-                    String sqsUrl = System.getenv().getOrDefault("SQS_NOTIFICACAO_URL", 
-                        "https://sqs.us-east-2.amazonaws.com/123456789012/notificacao-urgencia-queue");
-                    context.getLogger().log("✓ Mensagem enviada para fila SQS: " + sqsUrl);
-                }
-                
-                context.getLogger().log("✓ Todos os emails enviados com sucesso via SES");
-                
-            } catch (Exception emailException) {
-                context.getLogger().log("ERRO ao enviar email: " + emailException.getMessage());
-            }
-            
-            // Log de estatísticas
-            context.getLogger().log("\n" + SimulatedSESService.getStatistics());
+        return response;
+    }
 
-        } catch (IllegalArgumentException e) {
-            context.getLogger().log("Erro de validação: " + e.getMessage());
-            response.put("statusCode", 400);
-            response.put("body", gson.toJson(Map.of(
-                    "error", "Erro de validação",
-                    "message", e.getMessage()
-            )));
-        } catch (Exception e) {
-            context.getLogger().log("Erro interno: " + e.getMessage());
-            response.put("statusCode", 500);
+    /**
+     * Avaliação, rollup diário e, se urgente, notificação no outbox na mesma transação;
+     * qualquer falha de banco propaga e desfaz tudo
+     */
+    @Transactional
+    void gravar(Avaliacao avaliacao, Context context) {
+        context.getLogger().log("Conectando ao RDS PostgreSQL...");
+        context.getLogger().log(String.format("Database URL: %s", 
+            System.getenv().getOrDefault("DB_HOST", "localhost") + ":" + 
+            System.getenv().getOrDefault("DB_PORT", "5432")));
+
+        avaliacaoRepository.persist(avaliacao);
+        resumoDiarioService.registrar(avaliacao);
+
+        // Se URGENTE (nota <= 2), alerta crítico pelo outbox: publicado no SQS após o commit,
+        // agrupado com os demais alertas do restaurante dentro da janela
+        if (avaliacao.isUrgente()) {
+            LOG.infof("🚨 ALERTA: Avaliação crítica detectada (nota %d)", avaliacao.getNota());
+            notificacaoService.registrarNotificacaoUrgencia(avaliacao);
+        }
+
+        context.getLogger().log(String.format("✓ Avaliação persistida no RDS com ID: %d", avaliacao.getId()));
+
+        // Emails entram na fila só se a avaliação for commitada (observer AFTER_SUCCESS)
+        avaliacaoGravada.fire(new EmailsAvaliacao(avaliacao.getRestaurante(), avaliacao.getNota(),
+            avaliacao.getComentario(), avaliacao.getEmailCliente()));
+    }
+
+    /**
+     * Persiste um array de avaliações em uma única transação com batch JDBC.
+     * Emails individuais não são enviados no modo lote (importação de parceiros).
+     */
+    public Map<String, Object> processarLote(List<AvaliacaoRequest> requests, Context context) {
+        Map<String, Object> response = new HashMap<>();
+
+        context.getLogger().log(String.format("Modo lote: %d avaliações recebidas", requests.size()));
+
+        LoteAvaliacaoResponse lote = avaliacaoService.salvarLote(requests);
+
+        context.getLogger().log(String.format("✓ Lote persistido: %d salvas, %d com erro",
+            lote.getTotalSalvas(), lote.getErros().size()));
+
+        response.put("statusCode", lote.getTotalSalvas() > 0 ? 200 : 400);
+        response.put("body", gson.toJson(lote));
+        response.put("headers", Map.of(
+                "Content-Type", "application/json",
+                "Access-Control-Allow-Origin", "*"
+        ));
+
+        return response;
+    }
+
+    /**
+     * 503 quando o banco está inacessível ou o pool não entregou conexão no acquisition-timeout
+     * (o cliente pode repetir), 500 para os demais erros
+     */
+    Map<String, Object> erroInterno(Exception e, Context context) {
+        Map<String, Object> response = new HashMap<>();
+        if (FalhaConexaoBanco.indisponivel(e)) {
+            context.getLogger().log("Banco de dados indisponível: " + e.getMessage());
+            response.put("statusCode", 503);
             response.put("body", gson.toJson(Map.of(
-                    "error", "Erro interno do servidor",
-                    "message", e.getMessage()
+                    "error", "Banco de dados indisponível",
+                    "message", String.valueOf(e.getMessage())
             )));
+            return response;
         }
-
+        context.getLogger().log("Erro interno: " + e.getMessage());
+        response.put("statusCode", 500);
+        response.put("body", gson.toJson(Map.of(
+                "error", "Erro interno do servidor",
+                "message", String.valueOf(e.getMessage())
+        )));
         return response;
     }
 
+    /**
+     * Enfileira os emails da avaliação após o commit: a resposta não espera pelos envios SMTP,
+     * que são drenados ao fim da invocação
+     */
+    void enfileirarEmails(@Observes(during = TransactionPhase.AFTER_SUCCESS) EmailsAvaliacao avaliacao) {
+        FilaEnvioEmail filaEmail = EmailConfig.getFilaEnvioEmail();
+        String restaurante = avaliacao.restaurante();
+        Integer nota = avaliacao.nota();
+        String comentario = avaliacao.comentario();
+        String emailCliente = avaliacao.emailCliente();
+
+        // 1. Email de confirmação para o cliente
+        if (emailCliente != null && !emailCliente.trim().isEmpty()) {
+            enfileirarEmail(filaEmail, "confirmação para " + emailCliente,
+                    email -> email.enviarConfirmacaoAvaliacao(emailCliente, restaurante, nota, comentario));
+        }
+
+        // 2. Notificação para o admin
+        enfileirarEmail(filaEmail, "notificação admin " + adminEmail,
+                email -> email.enviarNotificacaoAdmin(adminEmail, restaurante, nota, comentario, emailCliente));
+    }
+
+    private void enfileirarEmail(FilaEnvioEmail fila, String descricao, FilaEnvioEmail.TarefaEmail tarefa) {
+        if (fila.enfileirar(descricao, tarefa, ESPERA_FILA_EMAIL)) {
+            LOG.infof("📧 Email enfileirado: %s", descricao);
+        } else {
+            LOG.warnf("⚠️ Fila de emails cheia, email descartado: %s", descricao);
+        }
+    }
+
     private void validarAvaliacao(AvaliacaoRequest request) {
         if (request.getRestaurante() == null || request.getRestaurante().trim().isEmpty()) {
             throw new IllegalArgumentException("Nome do restaurante é obrigatório");
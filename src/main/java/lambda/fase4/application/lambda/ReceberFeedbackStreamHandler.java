@@ -0,0 +1,146 @@
+package lambda.fase4.application.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import jakarta.inject.Inject;
+import lambda.fase4.application.dto.AvaliacaoRequest;
+import lambda.fase4.infraestructure.CodecsJson;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variante em stream do ReceberFeedbackHandler: lê o evento do API Gateway direto do InputStream,
+ * extrai o body e o converte em AvaliacaoRequest numa única passada (sem Map intermediário nem
+ * re-serialização do evento), e escreve a resposta direto no OutputStream.
+ * A regra de negócio é a mesma do ReceberFeedbackHandler.
+ */
+public class ReceberFeedbackStreamHandler implements RequestStreamHandler {
+
+    @Inject
+    ReceberFeedbackHandler receberFeedbackHandler;
+
+    private final Gson gson;
+
+    public ReceberFeedbackStreamHandler() {
+        this.gson = CodecsJson.gson();
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        Map<String, Object> response;
+
+        try {
+            context.getLogger().log("=== Recebendo novo feedback (stream) ===");
+            JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+            response = processarEvento(reader, context);
+
+        } catch (JsonParseException | MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            context.getLogger().log("JSON inválido: " + e.getMessage());
+            response = new HashMap<>();
+            response.put("statusCode", 400);
+            response.put("body", gson.toJson(Map.of(
+                    "error", "JSON inválido",
+                    "message", String.valueOf(e.getMessage())
+            )));
+        } catch (Exception e) {
+            response = receberFeedbackHandler.erroInterno(e, context);
+        }
+
+        escreverResposta(response, output);
+        receberFeedbackHandler.registrarFimInvocacao(context);
+    }
+
+    /**
+     * Percorre o evento uma vez: o body (string, objeto ou array) vai direto para o DTO; em
+     * invocação direta os campos da avaliação estão no próprio evento. Demais campos são ignorados.
+     */
+    private Map<String, Object> processarEvento(JsonReader reader, Context context) throws IOException {
+        AvaliacaoRequest direta = new AvaliacaoRequest();
+        AvaliacaoRequest[] lote = null;
+        AvaliacaoRequest request = null;
+        String body = null;
+        boolean base64 = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String campo = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (campo) {
+                case "body" -> {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.STRING) {
+                        body = reader.nextString();
+                    } else if (token == JsonToken.BEGIN_ARRAY) {
+                        lote = gson.fromJson(reader, AvaliacaoRequest[].class);
+                    } else {
+                        request = gson.fromJson(reader, AvaliacaoRequest.class);
+                    }
+                }
+                case "isBase64Encoded" -> base64 = reader.nextBoolean();
+                case "restaurante" -> direta.setRestaurante(reader.nextString());
+                case "nota" -> direta.setNota(reader.nextInt());
+                case "comentario" -> direta.setComentario(reader.nextString());
+                case "emailCliente" -> direta.setEmailCliente(reader.nextString());
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (body != null) {
+            String json = base64
+                    ? new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8)
+                    : body;
+            // Modo lote: body com array JSON de avaliações
+            if (json.stripLeading().startsWith("[")) {
+                lote = gson.fromJson(json, AvaliacaoRequest[].class);
+            } else {
+                request = gson.fromJson(json, AvaliacaoRequest.class);
+            }
+        }
+
+        if (lote != null) {
+            return receberFeedbackHandler.processarLote(Arrays.asList(lote), context);
+        }
+        return receberFeedbackHandler.processar(request != null ? request : direta, context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void escreverResposta(Map<String, Object> response, OutputStream output) throws IOException {
+        JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        writer.beginObject();
+        writer.name("statusCode").value(((Number) response.get("statusCode")).intValue());
+
+        Object headers = response.get("headers");
+        if (headers instanceof Map<?, ?> mapa) {
+            writer.name("headers").beginObject();
+            for (Map.Entry<String, Object> header : ((Map<String, Object>) mapa).entrySet()) {
+                writer.name(header.getKey()).value(String.valueOf(header.getValue()));
+            }
+            writer.endObject();
+        }
+
+        writer.name("body").value((String) response.get("body"));
+        writer.endObject();
+        writer.flush();
+    }
+}
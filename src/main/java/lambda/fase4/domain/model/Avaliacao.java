@@ -7,8 +7,11 @@ import java.time.LocalDateTime;
 @Table(name = "avaliacoes")
 public class Avaliacao {
 
+    // Sequence com allocationSize > 1 (otimizador pooled) permite ao Hibernate
+    // agrupar os INSERTs em batch JDBC, o que IDENTITY impede
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "avaliacoes_seq")
+    @SequenceGenerator(name = "avaliacoes_seq", sequenceName = "avaliacoes_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
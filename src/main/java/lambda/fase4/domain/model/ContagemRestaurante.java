@@ -0,0 +1,51 @@
+package lambda.fase4.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção agregada de todas as avaliações de um restaurante: total, soma, histograma
+ * de notas e data da avaliação mais recente
+ */
+public class ContagemRestaurante {
+
+    private final String restaurante;
+    private final long total;
+    private final long somaNotas;
+    private final long[] porNota;
+    private final LocalDateTime ultimaAvaliacao;
+
+    public ContagemRestaurante(String restaurante, Long total, Long somaNotas,
+                               Long nota1, Long nota2, Long nota3, Long nota4, Long nota5,
+                               LocalDateTime ultimaAvaliacao) {
+        this.restaurante = restaurante;
+        this.total = valor(total);
+        this.somaNotas = valor(somaNotas);
+        this.porNota = new long[] {0L, valor(nota1), valor(nota2), valor(nota3), valor(nota4), valor(nota5)};
+        this.ultimaAvaliacao = ultimaAvaliacao;
+    }
+
+    public String getRestaurante() {
+        return restaurante;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getSomaNotas() {
+        return somaNotas;
+    }
+
+    // Indexado pela nota (posições 1 a 5)
+    public long getContagemNota(int nota) {
+        return porNota[nota];
+    }
+
+    public LocalDateTime getUltimaAvaliacao() {
+        return ultimaAvaliacao;
+    }
+
+    private static long valor(Long valor) {
+        return valor != null ? valor : 0L;
+    }
+}
@@ -0,0 +1,142 @@
+package lambda.fase4.domain.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Notificação pendente gravada na mesma transação da avaliação (transactional outbox).
+ * O relay publica as pendentes no SQS e marca enviadaEm; a que esgota as tentativas de envio
+ * recebe esgotadaEm (dead letter) e não é mais reenviada.
+ */
+@Entity
+@Table(name = "notificacao_outbox")
+public class NotificacaoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificacao_outbox_seq")
+    @SequenceGenerator(name = "notificacao_outbox_seq", sequenceName = "notificacao_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "avaliacao_id", nullable = false)
+    private Long avaliacaoId;
+
+    @Column(nullable = false)
+    private String restaurante;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+    @Column(name = "enviada_em")
+    private LocalDateTime enviadaEm;
+
+    @Column(name = "esgotada_em")
+    private LocalDateTime esgotadaEm;
+
+    @Column(nullable = false)
+    private Integer tentativas;
+
+    @Column(name = "ultimo_erro", length = 1000)
+    private String ultimoErro;
+
+    public NotificacaoOutbox() {
+        this.criadaEm = LocalDateTime.now();
+        this.tentativas = 0;
+    }
+
+    public NotificacaoOutbox(Long avaliacaoId, String restaurante, String payload) {
+        this();
+        this.avaliacaoId = avaliacaoId;
+        this.restaurante = restaurante;
+        this.payload = payload;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAvaliacaoId() {
+        return avaliacaoId;
+    }
+
+    public void setAvaliacaoId(Long avaliacaoId) {
+        this.avaliacaoId = avaliacaoId;
+    }
+
+    public String getRestaurante() {
+        return restaurante;
+    }
+
+    public void setRestaurante(String restaurante) {
+        this.restaurante = restaurante;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCriadaEm() {
+        return criadaEm;
+    }
+
+    public void setCriadaEm(LocalDateTime criadaEm) {
+        this.criadaEm = criadaEm;
+    }
+
+    public LocalDateTime getEnviadaEm() {
+        return enviadaEm;
+    }
+
+    public void setEnviadaEm(LocalDateTime enviadaEm) {
+        this.enviadaEm = enviadaEm;
+    }
+
+    public LocalDateTime getEsgotadaEm() {
+        return esgotadaEm;
+    }
+
+    public void setEsgotadaEm(LocalDateTime esgotadaEm) {
+        this.esgotadaEm = esgotadaEm;
+    }
+
+    public Integer getTentativas() {
+        return tentativas;
+    }
+
+    public void setTentativas(Integer tentativas) {
+        this.tentativas = tentativas;
+    }
+
+    public String getUltimoErro() {
+        return ultimoErro;
+    }
+
+    public void setUltimoErro(String ultimoErro) {
+        this.ultimoErro = ultimoErro;
+    }
+
+    /**
+     * Conta uma tentativa de envio com falha. Retorna true quando ela esgota as tentativas:
+     * a notificação passa ao estado terminal e sai das pendentes.
+     */
+    public boolean registrarFalha(String erro, int maxTentativas) {
+        this.tentativas++;
+        this.ultimoErro = erro != null && erro.length() > 1000 ? erro.substring(0, 1000) : erro;
+        if (this.tentativas >= maxTentativas) {
+            this.esgotadaEm = LocalDateTime.now();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package lambda.fase4.domain.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Até onde uma projeção já consumiu as avaliações, na ordem (dataAvaliacao, id):
+ * todas as avaliações até (ultimaData, ultimoId), inclusive, já foram aplicadas.
+ */
+@Entity
+@Table(name = "projecao_watermark")
+public class ProjecaoWatermark {
+
+    // Início do fluxo: nenhuma avaliação aplicada
+    public static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @Column(nullable = false, length = 100)
+    private String projecao;
+
+    @Column(name = "ultima_data", nullable = false)
+    private LocalDateTime ultimaData;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    public ProjecaoWatermark() {}
+
+    public ProjecaoWatermark(String projecao) {
+        this.projecao = projecao;
+        this.ultimaData = INICIO;
+        this.ultimoId = 0L;
+        this.atualizadoEm = LocalDateTime.now();
+    }
+
+    public void avancar(Avaliacao ultimaAplicada) {
+        this.ultimaData = ultimaAplicada.getDataAvaliacao();
+        this.ultimoId = ultimaAplicada.getId();
+        this.atualizadoEm = LocalDateTime.now();
+    }
+
+    // Getters
+    public String getProjecao() {
+        return projecao;
+    }
+
+    public LocalDateTime getUltimaData() {
+        return ultimaData;
+    }
+
+    public Long getUltimoId() {
+        return ultimoId;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+}
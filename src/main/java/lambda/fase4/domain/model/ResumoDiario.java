@@ -0,0 +1,89 @@
+package lambda.fase4.domain.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Rollup diário por restaurante: histograma de notas, soma e negativas.
+ * Mantido incrementalmente a cada avaliação gravada (upsert na mesma transação).
+ */
+@Entity
+@Table(name = "resumo_diario_restaurante")
+@IdClass(ResumoDiarioId.class)
+public class ResumoDiario {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Column(nullable = false)
+    private String restaurante;
+
+    @Column(nullable = false)
+    private Long total = 0L;
+
+    @Column(name = "soma_notas", nullable = false)
+    private Long somaNotas = 0L;
+
+    @Column(name = "nota_1", nullable = false)
+    private Long nota1 = 0L;
+
+    @Column(name = "nota_2", nullable = false)
+    private Long nota2 = 0L;
+
+    @Column(name = "nota_3", nullable = false)
+    private Long nota3 = 0L;
+
+    @Column(name = "nota_4", nullable = false)
+    private Long nota4 = 0L;
+
+    @Column(name = "nota_5", nullable = false)
+    private Long nota5 = 0L;
+
+    @Column(nullable = false)
+    private Long negativas = 0L;
+
+    public ResumoDiario() {}
+
+    // Getters
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public String getRestaurante() {
+        return restaurante;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public Long getSomaNotas() {
+        return somaNotas;
+    }
+
+    public Long getNota1() {
+        return nota1;
+    }
+
+    public Long getNota2() {
+        return nota2;
+    }
+
+    public Long getNota3() {
+        return nota3;
+    }
+
+    public Long getNota4() {
+        return nota4;
+    }
+
+    public Long getNota5() {
+        return nota5;
+    }
+
+    public Long getNegativas() {
+        return negativas;
+    }
+}
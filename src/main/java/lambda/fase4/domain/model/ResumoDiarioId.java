@@ -0,0 +1,38 @@
+package lambda.fase4.domain.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+public class ResumoDiarioId implements Serializable {
+
+    private LocalDate dia;
+    private String restaurante;
+
+    public ResumoDiarioId() {}
+
+    public ResumoDiarioId(LocalDate dia, String restaurante) {
+        this.dia = dia;
+        this.restaurante = restaurante;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public String getRestaurante() {
+        return restaurante;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ResumoDiarioId that)) return false;
+        return Objects.equals(dia, that.dia) && Objects.equals(restaurante, that.restaurante);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dia, restaurante);
+    }
+}
@@ -0,0 +1,79 @@
+package lambda.fase4.domain.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Read model com o resumo acumulado de cada restaurante (todas as avaliações).
+ * Mantido de forma assíncrona pela projeção, por upsert; nunca gravado pela aplicação via JPA.
+ */
+@Entity
+@Table(name = "restaurante_resumo")
+public class ResumoRestaurante {
+
+    @Id
+    @Column(nullable = false)
+    private String restaurante;
+
+    @Column(nullable = false)
+    private Long total = 0L;
+
+    @Column(name = "soma_notas", nullable = false)
+    private Long somaNotas = 0L;
+
+    @Column(name = "nota_1", nullable = false)
+    private Long nota1 = 0L;
+
+    @Column(name = "nota_2", nullable = false)
+    private Long nota2 = 0L;
+
+    @Column(name = "nota_3", nullable = false)
+    private Long nota3 = 0L;
+
+    @Column(name = "nota_4", nullable = false)
+    private Long nota4 = 0L;
+
+    @Column(name = "nota_5", nullable = false)
+    private Long nota5 = 0L;
+
+    @Column(nullable = false)
+    private Long negativas = 0L;
+
+    @Column(name = "ultima_avaliacao")
+    private LocalDateTime ultimaAvaliacao;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    public ResumoRestaurante() {}
+
+    public ContagemRestaurante paraContagem() {
+        return new ContagemRestaurante(restaurante, total, somaNotas, nota1, nota2, nota3, nota4, nota5,
+            ultimaAvaliacao);
+    }
+
+    // Getters
+    public String getRestaurante() {
+        return restaurante;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public Long getSomaNotas() {
+        return somaNotas;
+    }
+
+    public Long getNegativas() {
+        return negativas;
+    }
+
+    public LocalDateTime getUltimaAvaliacao() {
+        return ultimaAvaliacao;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+}
@@ -1,21 +1,57 @@
 package lambda.fase4.domain.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import lambda.fase4.domain.model.Avaliacao;
+import lambda.fase4.domain.model.ContagemRestaurante;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 @ApplicationScoped
 public class AvaliacaoRepository implements PanacheRepository<Avaliacao> {
 
+    private static final int TAMANHO_FETCH_STREAM = 500;
+
+    // Literal (não parâmetro) para casar com o predicado do índice parcial idx_avaliacoes_negativas_data
+    private static final String NEGATIVAS = "nota <= 2";
+
     public List<Avaliacao> findByRestaurante(String restaurante) {
         return list("restaurante", restaurante);}
 
+    // Paginação por keyset: id > cursor, ordenado por id, sem OFFSET
+    public List<Avaliacao> listarAPartirDe(long cursor, int limite) {
+        return find("id > ?1", Sort.by("id"), cursor)
+            .range(0, limite - 1)
+            .list();}
+
+    public List<Avaliacao> findByRestaurante(String restaurante, long cursor, int limite) {
+        return find("restaurante = ?1 and id > ?2", Sort.by("id"), restaurante, cursor)
+            .range(0, limite - 1)
+            .list();}
+
+    /**
+     * Stream via cursor do JDBC (fetch size) em modo somente leitura; exige transação ativa
+     * e o consumidor deve desanexar as entidades já processadas
+     */
+    public Stream<Avaliacao> streamAPartirDe(long cursor) {
+        return find("id > ?1", Sort.by("id"), cursor)
+            .withHint(HibernateHints.HINT_FETCH_SIZE, TAMANHO_FETCH_STREAM)
+            .withHint(HibernateHints.HINT_READ_ONLY, true)
+            .stream();}
+
+    public Stream<Avaliacao> streamByRestaurante(String restaurante, long cursor) {
+        return find("restaurante = ?1 and id > ?2", Sort.by("id"), restaurante, cursor)
+            .withHint(HibernateHints.HINT_FETCH_SIZE, TAMANHO_FETCH_STREAM)
+            .withHint(HibernateHints.HINT_READ_ONLY, true)
+            .stream();}
+
     public List<Avaliacao> findAvaliacoesUrgentes() {
-        return list("nota <= ?1", 2);}
+        return list(NEGATIVAS);}
 
     public List<Avaliacao> findByNota(Integer nota) {
         return list("nota", nota);}
@@ -23,6 +59,50 @@ public class AvaliacaoRepository implements PanacheRepository<Avaliacao> {
     public List<Avaliacao> findByPeriodo(LocalDateTime inicio, LocalDateTime fim) {
         return list("dataAvaliacao >= ?1 and dataAvaliacao <= ?2", inicio, fim);}
 
+    /**
+     * Persiste as avaliações em blocos de batchSize, liberando o contexto de
+     * persistência a cada bloco para manter a memória constante em lotes grandes
+     */
+    public void persistirEmLote(List<Avaliacao> avaliacoes, int batchSize) {
+        for (int i = 0; i < avaliacoes.size(); i++) {
+            persist(avaliacoes.get(i));
+            if ((i + 1) % batchSize == 0) {
+                flush();
+                getEntityManager().clear();
+            }
+        }
+        flush();
+    }
+
+    public List<Avaliacao> findNegativasByPeriodo(LocalDateTime inicio, LocalDateTime fim) {
+        return list("dataAvaliacao >= ?1 and dataAvaliacao <= ?2 and " + NEGATIVAS,
+            Sort.by("dataAvaliacao"), inicio, fim);}
+
+    /**
+     * Próximas avaliações depois do watermark (dataAvaliacao, id), na mesma ordem, até o limite
+     * de data: alimenta a projeção do resumo por restaurante
+     */
+    public List<Avaliacao> listarAposWatermark(LocalDateTime ultimaData, long ultimoId,
+                                               LocalDateTime limiteData, int limite) {
+        return find("dataAvaliacao >= ?1 and (dataAvaliacao > ?1 or id > ?2) and dataAvaliacao <= ?3",
+                Sort.by("dataAvaliacao").and("id"), ultimaData, ultimoId, limiteData)
+            .range(0, limite - 1)
+            .withHint(HibernateHints.HINT_READ_ONLY, true)
+            .list();}
+
+    // Avaliações ainda não aplicadas ao read model (depois do watermark), agregadas por restaurante
+    public List<ContagemRestaurante> contarPorRestauranteApos(LocalDateTime ultimaData, long ultimoId) {
+        return getEntityManager().createQuery(
+                "select new lambda.fase4.domain.model.ContagemRestaurante(a.restaurante, count(a), sum(a.nota), "
+                    + "sum(case when a.nota = 1 then 1 else 0 end), sum(case when a.nota = 2 then 1 else 0 end), "
+                    + "sum(case when a.nota = 3 then 1 else 0 end), sum(case when a.nota = 4 then 1 else 0 end), "
+                    + "sum(case when a.nota = 5 then 1 else 0 end), max(a.dataAvaliacao)) "
+                    + "from Avaliacao a where a.dataAvaliacao >= ?1 and (a.dataAvaliacao > ?1 or a.id > ?2) "
+                    + "group by a.restaurante", ContagemRestaurante.class)
+            .setParameter(1, ultimaData)
+            .setParameter(2, ultimoId)
+            .getResultList();}
+
     public void marcarComoProcessada(Long id) {
         update("processada = true where id = ?1", id);
     }
@@ -0,0 +1,65 @@
+package lambda.fase4.domain.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import lambda.fase4.domain.model.NotificacaoOutbox;
+import org.hibernate.LockOptions;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@ApplicationScoped
+public class NotificacaoOutboxRepository implements PanacheRepository<NotificacaoOutbox> {
+
+    /**
+     * Bloqueia (FOR UPDATE SKIP LOCKED) as próximas pendentes, em ordem de criação,
+     * para que relays concorrentes nunca publiquem a mesma notificação
+     */
+    public List<NotificacaoOutbox> bloquearPendentes(int limite, int maxTentativas) {
+        return find("enviadaEm is null and esgotadaEm is null and tentativas < ?1 order by id", maxTentativas)
+            .page(0, limite)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+            .list();}
+
+    /**
+     * Como bloquearPendentes, mas só de restaurantes sem envio depois de inicioJanela:
+     * as pendentes dos restaurantes com a janela de agrupamento aberta ficam para depois
+     */
+    public List<NotificacaoOutbox> bloquearPendentesForaDaJanela(int limite, int maxTentativas, LocalDateTime inicioJanela) {
+        return find("from NotificacaoOutbox n where n.enviadaEm is null and n.esgotadaEm is null and n.tentativas < ?1"
+                + " and not exists (select 1 from NotificacaoOutbox e where e.restaurante = n.restaurante and e.enviadaEm > ?2)"
+                + " order by n.id", maxTentativas, inicioJanela)
+            .page(0, limite)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+            .list();}
+
+    public long contarPendentes() {
+        return count("enviadaEm is null and esgotadaEm is null");}
+
+    /**
+     * Leva ao estado terminal as pendentes com tentativas >= maxTentativas que ainda não estão nele
+     * (ex.: notificacao.outbox.max-tentativas reduzido depois das falhas)
+     */
+    public long marcarEsgotadas(int maxTentativas, LocalDateTime agora) {
+        return update("esgotadaEm = ?1 where enviadaEm is null and esgotadaEm is null and tentativas >= ?2",
+            agora, maxTentativas);}
+
+    public long contarEsgotadas() {
+        return count("esgotadaEm is not null");}
+
+    public LocalDateTime esgotadaMaisAntiga() {
+        return getEntityManager()
+            .createQuery("select min(n.esgotadaEm) from NotificacaoOutbox n", LocalDateTime.class)
+            .getSingleResult();}
+
+    public long removerEsgotadasAntesDe(LocalDateTime limite) {
+        return delete("esgotadaEm < ?1", limite);}
+
+    public long removerEnviadasAntesDe(LocalDateTime limite) {
+        return delete("enviadaEm is not null and enviadaEm < ?1", limite);}
+
+}
@@ -0,0 +1,50 @@
+package lambda.fase4.domain.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import lambda.fase4.domain.model.ProjecaoWatermark;
+import org.hibernate.LockOptions;
+
+import java.util.Optional;
+
+
+@ApplicationScoped
+public class ProjecaoWatermarkRepository implements PanacheRepositoryBase<ProjecaoWatermark, String> {
+
+    private static final String CRIAR_SE_AUSENTE = """
+        INSERT INTO projecao_watermark (projecao, ultima_data, ultimo_id, atualizado_em)
+        VALUES (?1, ?2, 0, CURRENT_TIMESTAMP)
+        ON CONFLICT (projecao) DO NOTHING
+        """;
+
+    /**
+     * Cria o watermark no início do fluxo se ainda não existe (INSERT ... ON CONFLICT DO NOTHING):
+     * instâncias concorrentes não disputam a chave primária nem abortam a transação
+     */
+    public void criarSeAusente(String projecao) {
+        getEntityManager().createNativeQuery(CRIAR_SE_AUSENTE)
+            .setParameter(1, projecao)
+            .setParameter(2, ProjecaoWatermark.INICIO)
+            .executeUpdate();}
+
+    /**
+     * Bloqueia o watermark (FOR UPDATE SKIP LOCKED): vazio se outra instância está
+     * aplicando um lote da mesma projeção, ou se o watermark ainda não existe
+     */
+    public Optional<ProjecaoWatermark> bloquear(String projecao) {
+        return find("projecao", projecao)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint("jakarta.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+            .firstResultOptional();}
+
+    /**
+     * Lê o watermark com bloqueio compartilhado (FOR SHARE): até o fim da transação nenhum lote
+     * é aplicado, então o read model e o watermark lidos correspondem ao mesmo ponto do fluxo
+     */
+    public Optional<ProjecaoWatermark> compartilhar(String projecao) {
+        return find("projecao", projecao)
+            .withLock(LockModeType.PESSIMISTIC_READ)
+            .firstResultOptional();}
+
+}
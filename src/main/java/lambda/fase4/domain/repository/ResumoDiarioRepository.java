@@ -0,0 +1,80 @@
+package lambda.fase4.domain.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import lambda.fase4.domain.model.ResumoDiario;
+import lambda.fase4.domain.model.ResumoDiarioId;
+
+import java.time.LocalDate;
+import java.util.List;
+
+
+@ApplicationScoped
+public class ResumoDiarioRepository implements PanacheRepositoryBase<ResumoDiario, ResumoDiarioId> {
+
+    private static final String UPSERT = """
+        INSERT INTO resumo_diario_restaurante
+            (dia, restaurante, total, soma_notas, nota_1, nota_2, nota_3, nota_4, nota_5, negativas)
+        VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10)
+        ON CONFLICT (dia, restaurante) DO UPDATE SET
+            total = resumo_diario_restaurante.total + EXCLUDED.total,
+            soma_notas = resumo_diario_restaurante.soma_notas + EXCLUDED.soma_notas,
+            nota_1 = resumo_diario_restaurante.nota_1 + EXCLUDED.nota_1,
+            nota_2 = resumo_diario_restaurante.nota_2 + EXCLUDED.nota_2,
+            nota_3 = resumo_diario_restaurante.nota_3 + EXCLUDED.nota_3,
+            nota_4 = resumo_diario_restaurante.nota_4 + EXCLUDED.nota_4,
+            nota_5 = resumo_diario_restaurante.nota_5 + EXCLUDED.nota_5,
+            negativas = resumo_diario_restaurante.negativas + EXCLUDED.negativas
+        """;
+
+    private static final String RECONSTRUIR = """
+        INSERT INTO resumo_diario_restaurante
+            (dia, restaurante, total, soma_notas, nota_1, nota_2, nota_3, nota_4, nota_5, negativas)
+        SELECT CAST(data_avaliacao AS DATE), restaurante, COUNT(*), SUM(nota),
+               COUNT(*) FILTER (WHERE nota = 1), COUNT(*) FILTER (WHERE nota = 2),
+               COUNT(*) FILTER (WHERE nota = 3), COUNT(*) FILTER (WHERE nota = 4),
+               COUNT(*) FILTER (WHERE nota = 5), COUNT(*) FILTER (WHERE nota <= 2)
+        FROM avaliacoes
+        WHERE data_avaliacao >= ?1 AND data_avaliacao < ?2
+        GROUP BY CAST(data_avaliacao AS DATE), restaurante
+        """;
+
+    /**
+     * Soma as contagens ao rollup do dia/restaurante (INSERT ... ON CONFLICT DO UPDATE),
+     * sem leitura prévia e seguro para escritores concorrentes.
+     * contagemPorNota é indexado pela nota (posições 1 a 5).
+     */
+    public void incrementar(LocalDate dia, String restaurante, long[] contagemPorNota) {
+        long total = 0;
+        long soma = 0;
+        for (int nota = 1; nota <= 5; nota++) {
+            total += contagemPorNota[nota];
+            soma += (long) nota * contagemPorNota[nota];
+        }
+
+        getEntityManager().createNativeQuery(UPSERT)
+            .setParameter(1, dia)
+            .setParameter(2, restaurante)
+            .setParameter(3, total)
+            .setParameter(4, soma)
+            .setParameter(5, contagemPorNota[1])
+            .setParameter(6, contagemPorNota[2])
+            .setParameter(7, contagemPorNota[3])
+            .setParameter(8, contagemPorNota[4])
+            .setParameter(9, contagemPorNota[5])
+            .setParameter(10, contagemPorNota[1] + contagemPorNota[2])
+            .executeUpdate();}
+
+    // Recalcula os dias [inicio, fim] a partir das avaliações brutas (backfill/correção)
+    public int reconstruir(LocalDate inicio, LocalDate fim) {
+        delete("dia >= ?1 and dia <= ?2", inicio, fim);
+        return getEntityManager().createNativeQuery(RECONSTRUIR)
+            .setParameter(1, inicio.atStartOfDay())
+            .setParameter(2, fim.plusDays(1).atStartOfDay())
+            .executeUpdate();}
+
+    // 1 linha por dia x restaurante: o volume lido não depende da quantidade de avaliações
+    public List<ResumoDiario> listarPorPeriodo(LocalDate inicio, LocalDate fim) {
+        return list("dia >= ?1 and dia <= ?2", inicio, fim);}
+
+}
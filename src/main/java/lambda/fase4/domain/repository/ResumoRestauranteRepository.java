@@ -0,0 +1,68 @@
+package lambda.fase4.domain.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import lambda.fase4.domain.model.ResumoRestaurante;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@ApplicationScoped
+public class ResumoRestauranteRepository implements PanacheRepositoryBase<ResumoRestaurante, String> {
+
+    private static final String UPSERT = """
+        INSERT INTO restaurante_resumo
+            (restaurante, total, soma_notas, nota_1, nota_2, nota_3, nota_4, nota_5, negativas,
+             ultima_avaliacao, atualizado_em)
+        VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9, ?10, CURRENT_TIMESTAMP)
+        ON CONFLICT (restaurante) DO UPDATE SET
+            total = restaurante_resumo.total + EXCLUDED.total,
+            soma_notas = restaurante_resumo.soma_notas + EXCLUDED.soma_notas,
+            nota_1 = restaurante_resumo.nota_1 + EXCLUDED.nota_1,
+            nota_2 = restaurante_resumo.nota_2 + EXCLUDED.nota_2,
+            nota_3 = restaurante_resumo.nota_3 + EXCLUDED.nota_3,
+            nota_4 = restaurante_resumo.nota_4 + EXCLUDED.nota_4,
+            nota_5 = restaurante_resumo.nota_5 + EXCLUDED.nota_5,
+            negativas = restaurante_resumo.negativas + EXCLUDED.negativas,
+            ultima_avaliacao = GREATEST(restaurante_resumo.ultima_avaliacao, EXCLUDED.ultima_avaliacao),
+            atualizado_em = CURRENT_TIMESTAMP
+        """;
+
+    /**
+     * Soma as contagens ao resumo do restaurante (INSERT ... ON CONFLICT DO UPDATE),
+     * sem leitura prévia e seguro para escritores concorrentes.
+     * contagemPorNota é indexado pela nota (posições 1 a 5).
+     */
+    public void incrementar(String restaurante, long[] contagemPorNota, LocalDateTime ultimaAvaliacao) {
+        long total = 0;
+        long soma = 0;
+        for (int nota = 1; nota <= 5; nota++) {
+            total += contagemPorNota[nota];
+            soma += (long) nota * contagemPorNota[nota];
+        }
+
+        getEntityManager().createNativeQuery(UPSERT)
+            .setParameter(1, restaurante)
+            .setParameter(2, total)
+            .setParameter(3, soma)
+            .setParameter(4, contagemPorNota[1])
+            .setParameter(5, contagemPorNota[2])
+            .setParameter(6, contagemPorNota[3])
+            .setParameter(7, contagemPorNota[4])
+            .setParameter(8, contagemPorNota[5])
+            .setParameter(9, contagemPorNota[1] + contagemPorNota[2])
+            .setParameter(10, ultimaAvaliacao)
+            .executeUpdate();}
+
+    // Maiores médias entre os restaurantes com pelo menos minimoAvaliacoes (desempate pelo volume)
+    public List<ResumoRestaurante> listarRanking(long minimoAvaliacoes, int limite) {
+        return getEntityManager().createQuery(
+                "from ResumoRestaurante r where r.total >= ?1 "
+                    + "order by (1.0 * r.somaNotas / r.total) desc, r.total desc, r.restaurante",
+                ResumoRestaurante.class)
+            .setParameter(1, minimoAvaliacoes)
+            .setMaxResults(limite)
+            .getResultList();}
+
+}
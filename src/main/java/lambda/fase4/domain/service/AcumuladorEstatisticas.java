@@ -0,0 +1,143 @@
+package lambda.fase4.domain.service;
+
+import lambda.fase4.domain.model.ResumoDiario;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Acumula as estatísticas de relatório em uma única passada: total, média,
+ * histograma de notas, contagem por restaurante e top-K, com estruturas primitivas.
+ * Aceita avaliações individuais ou linhas do rollup diário. Não é thread-safe.
+ */
+public class AcumuladorEstatisticas {
+
+    private long total;
+    private long somaNotas;
+    private final long[] histograma = new long[5];
+    private final ContagemPorRestaurante porRestaurante = new ContagemPorRestaurante();
+
+    public void adicionar(String restaurante, int nota) {
+        total++;
+        somaNotas += nota;
+        histograma[nota - 1]++;
+        porRestaurante.somar(restaurante, 1);
+    }
+
+    public void adicionar(ResumoDiario resumo) {
+        total += resumo.getTotal();
+        somaNotas += resumo.getSomaNotas();
+        histograma[0] += resumo.getNota1();
+        histograma[1] += resumo.getNota2();
+        histograma[2] += resumo.getNota3();
+        histograma[3] += resumo.getNota4();
+        histograma[4] += resumo.getNota5();
+        porRestaurante.somar(resumo.getRestaurante(), resumo.getTotal());
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getMedia() {
+        return total == 0 ? 0.0 : (double) somaNotas / total;
+    }
+
+    public long getContagemNota(int nota) {
+        return histograma[nota - 1];
+    }
+
+    public long[] getHistograma() {
+        return Arrays.copyOf(histograma, histograma.length);
+    }
+
+    public int getQuantidadeRestaurantes() {
+        return porRestaurante.tamanho;
+    }
+
+    public void forEachRestaurante(ObjLongConsumer<String> consumidor) {
+        porRestaurante.forEach(consumidor);
+    }
+
+    /**
+     * Os k restaurantes com mais avaliações, em ordem decrescente, via heap limitado a k elementos
+     */
+    public List<Map.Entry<String, Long>> topRestaurantes(int k) {
+        if (k <= 0 || porRestaurante.tamanho == 0) {
+            return List.of();
+        }
+
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(k + 1, Map.Entry.<String, Long>comparingByValue());
+        porRestaurante.forEach((restaurante, contagem) -> {
+            if (heap.size() < k) {
+                heap.add(Map.entry(restaurante, contagem));
+            } else if (contagem > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(Map.entry(restaurante, contagem));
+            }
+        });
+
+        List<Map.Entry<String, Long>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return top;
+    }
+
+    // Mapa String -> long com endereçamento aberto (sondagem linear), sem boxing dos valores
+    private static final class ContagemPorRestaurante {
+
+        private String[] chaves = new String[64];
+        private long[] valores = new long[64];
+        private int tamanho;
+
+        void somar(String chave, long delta) {
+            int mascara = chaves.length - 1;
+            int i = espalhar(chave.hashCode()) & mascara;
+            while (chaves[i] != null) {
+                if (chaves[i].equals(chave)) {
+                    valores[i] += delta;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            chaves[i] = chave;
+            valores[i] = delta;
+            if (++tamanho * 2 > chaves.length) {
+                redimensionar();
+            }
+        }
+
+        void forEach(ObjLongConsumer<String> consumidor) {
+            for (int i = 0; i < chaves.length; i++) {
+                if (chaves[i] != null) {
+                    consumidor.accept(chaves[i], valores[i]);
+                }
+            }
+        }
+
+        private void redimensionar() {
+            String[] chavesAntigas = chaves;
+            long[] valoresAntigos = valores;
+            chaves = new String[chavesAntigas.length * 2];
+            valores = new long[chavesAntigas.length * 2];
+            int mascara = chaves.length - 1;
+            for (int j = 0; j < chavesAntigas.length; j++) {
+                if (chavesAntigas[j] != null) {
+                    int i = espalhar(chavesAntigas[j].hashCode()) & mascara;
+                    while (chaves[i] != null) {
+                        i = (i + 1) & mascara;
+                    }
+                    chaves[i] = chavesAntigas[j];
+                    valores[i] = valoresAntigos[j];
+                }
+            }
+        }
+
+        private static int espalhar(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package lambda.fase4.domain.service;
 
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import lambda.fase4.application.dto.AvaliacaoRequest;
 import lambda.fase4.application.dto.AvaliacaoResponse;
+import lambda.fase4.application.dto.LoteAvaliacaoResponse;
+import lambda.fase4.application.dto.PaginaAvaliacoesResponse;
 import lambda.fase4.domain.model.Avaliacao;
 import lambda.fase4.domain.repository.AvaliacaoRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class AvaliacaoService {
@@ -26,6 +39,43 @@ public class AvaliacaoService {
     @Inject
     CloudWatchMetricsService metricsService;
 
+    @Inject
+    ResumoDiarioService resumoDiarioService;
+
+    // Disparado a cada avaliação gravada; os caches são atualizados só após o commit
+    @Inject
+    Event<AvaliacaoResponse> avaliacaoSalva;
+
+    @ConfigProperty(name = "avaliacao.lote.batch-size", defaultValue = "50")
+    int batchSize;
+
+    @ConfigProperty(name = "avaliacao.lote.tamanho-maximo", defaultValue = "1000")
+    int tamanhoMaximoLote;
+
+    @ConfigProperty(name = "avaliacao.pagina.limite-padrao", defaultValue = "100")
+    int limitePadrao;
+
+    @ConfigProperty(name = "avaliacao.pagina.limite-maximo", defaultValue = "1000")
+    int limiteMaximo;
+
+    @ConfigProperty(name = "avaliacao.cache.por-id.tamanho-maximo", defaultValue = "1000")
+    int tamanhoCachePorId;
+
+    @ConfigProperty(name = "avaliacao.cache.paginas.tamanho-maximo", defaultValue = "200")
+    int tamanhoCachePaginas;
+
+    @ConfigProperty(name = "avaliacao.cache.ttl", defaultValue = "30s")
+    Duration ttlCache;
+
+    private CacheLocal<Long, AvaliacaoResponse> cachePorId;
+    private CacheLocal<ChavePagina, PaginaAvaliacoesResponse> cachePaginas;
+
+    @PostConstruct
+    void inicializar() {
+        cachePorId = new CacheLocal<>(tamanhoCachePorId, ttlCache);
+        cachePaginas = new CacheLocal<>(tamanhoCachePaginas, ttlCache);
+    }
+
     @Transactional
     public AvaliacaoResponse salvarAvaliacao(AvaliacaoRequest request) {
         LOG.infof("Salvando avaliação para restaurante: %s", request.getRestaurante());
@@ -42,37 +92,188 @@ public class AvaliacaoService {
         );
 
         avaliacaoRepository.persist(avaliacao);
+        resumoDiarioService.registrar(avaliacao);
 
         // Enviar métrica para CloudWatch
         metricsService.registrarAvaliacao(request.getRestaurante(), request.getNota());
 
-        // Se for urgente, enviar para fila SQS
+        // Se for urgente, registrar no outbox (publicado no SQS pelo relay após o commit)
         if (avaliacao.isUrgente()) {
-            LOG.infof("Avaliação urgente detectada (nota %d), enviando para SQS", avaliacao.getNota());
-            notificacaoService.enviarNotificacaoUrgencia(avaliacao);
+            LOG.infof("Avaliação urgente detectada (nota %d), registrando no outbox", avaliacao.getNota());
+            notificacaoService.registrarNotificacaoUrgencia(avaliacao);
         }
 
-        return converterParaResponse(avaliacao);
+        AvaliacaoResponse response = converterParaResponse(avaliacao);
+        avaliacaoSalva.fire(response);
+        return response;
     }
 
-    public List<AvaliacaoResponse> listarTodas() {
-        return avaliacaoRepository.listAll().stream()
-            .map(this::converterParaResponse)
-            .collect(Collectors.toList());
+    /**
+     * Salva um lote de avaliações em uma única transação usando batch JDBC.
+     * Itens inválidos são reportados individualmente e não impedem os demais.
+     */
+    @Transactional
+    public LoteAvaliacaoResponse salvarLote(List<AvaliacaoRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Lote de avaliações vazio");
+        }
+        if (requests.size() > tamanhoMaximoLote) {
+            throw new IllegalArgumentException(
+                String.format("Lote excede o tamanho máximo de %d avaliações", tamanhoMaximoLote));
+        }
+
+        LOG.infof("Salvando lote com %d avaliações", requests.size());
+
+        List<Avaliacao> avaliacoes = new ArrayList<>(requests.size());
+        List<LoteAvaliacaoResponse.ErroItem> erros = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            AvaliacaoRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Avaliação não informada");
+                }
+                validarAvaliacao(request);
+                avaliacoes.add(new Avaliacao(
+                    request.getRestaurante(),
+                    request.getNota(),
+                    request.getComentario(),
+                    request.getEmailCliente()
+                ));
+            } catch (IllegalArgumentException e) {
+                erros.add(new LoteAvaliacaoResponse.ErroItem(i, e.getMessage()));
+            }
+        }
+
+        avaliacaoRepository.persistirEmLote(avaliacoes, batchSize);
+        resumoDiarioService.registrar(avaliacoes);
+
+        List<AvaliacaoResponse> salvas = new ArrayList<>(avaliacoes.size());
+        for (Avaliacao avaliacao : avaliacoes) {
+            metricsService.registrarAvaliacao(avaliacao.getRestaurante(), avaliacao.getNota());
+
+            if (avaliacao.isUrgente()) {
+                notificacaoService.registrarNotificacaoUrgencia(avaliacao);
+            }
+            AvaliacaoResponse response = converterParaResponse(avaliacao);
+            avaliacaoSalva.fire(response);
+            salvas.add(response);
+        }
+
+        LOG.infof("Lote processado: %d salvas, %d com erro", salvas.size(), erros.size());
+
+        return new LoteAvaliacaoResponse(requests.size(), salvas, erros);
+    }
+
+    public PaginaAvaliacoesResponse listarTodas(Long after, Integer limit) {
+        int limite = resolverLimite(limit);
+        List<Avaliacao> avaliacoes = avaliacaoRepository.listarAPartirDe(resolverCursor(after), limite + 1);
+        return montarPagina(avaliacoes, limite);
+    }
+
+    /**
+     * Transmite todas as avaliações a partir do cursor sem materializar a lista;
+     * cada entidade é desanexada após ser entregue ao consumidor
+     */
+    @Transactional
+    public void transmitirTodas(Long after, Consumer<AvaliacaoResponse> consumidor) {
+        try (Stream<Avaliacao> avaliacoes = avaliacaoRepository.streamAPartirDe(resolverCursor(after))) {
+            transmitir(avaliacoes, consumidor);
+        }
     }
 
     public AvaliacaoResponse buscarPorId(Long id) {
-        Avaliacao avaliacao = avaliacaoRepository.findById(id);
-        if (avaliacao == null) {
+        AvaliacaoResponse response = cachePorId.obter(id, chave -> {
+            Avaliacao avaliacao = avaliacaoRepository.findById(chave);
+            return avaliacao != null ? converterParaResponse(avaliacao) : null;
+        });
+        if (response == null) {
             throw new IllegalArgumentException("Avaliação não encontrada: " + id);
         }
-        return converterParaResponse(avaliacao);
+        return response;
     }
 
-    public List<AvaliacaoResponse> buscarPorRestaurante(String restaurante) {
-        return avaliacaoRepository.findByRestaurante(restaurante).stream()
+    public PaginaAvaliacoesResponse buscarPorRestaurante(String restaurante, Long after, Integer limit) {
+        int limite = resolverLimite(limit);
+        return cachePaginas.obter(new ChavePagina(restaurante, resolverCursor(after), limite), chave -> {
+            List<Avaliacao> avaliacoes = avaliacaoRepository.findByRestaurante(chave.restaurante, chave.cursor, limite + 1);
+            return montarPagina(avaliacoes, limite);
+        });
+    }
+
+    /**
+     * Após o commit: a avaliação nova entra no cache por id e as páginas do restaurante são
+     * descartadas (com ids alocados em blocos por container, qualquer página pode mudar)
+     */
+    void aoSalvar(@Observes(during = TransactionPhase.AFTER_SUCCESS) AvaliacaoResponse salva) {
+        cachePorId.colocar(salva.getId(), salva);
+        cachePaginas.invalidarSe(chave -> chave.restaurante.equals(salva.getRestaurante()));
+    }
+
+    @Scheduled(every = "${avaliacao.cache.metricas.intervalo:60s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void publicarMetricasCache() {
+        publicarMetricasCache("AvaliacaoPorId", cachePorId);
+        publicarMetricasCache("PaginaRestaurante", cachePaginas);
+    }
+
+    /**
+     * Descarta os contadores dos caches sem publicar (ex.: acessos do priming antes do checkpoint)
+     */
+    public void descartarMetricasCache() {
+        cachePorId.contadoresDesdeUltimaLeitura();
+        cachePaginas.contadoresDesdeUltimaLeitura();
+    }
+
+    private void publicarMetricasCache(String nome, CacheLocal<?, ?> cache) {
+        CacheLocal.Contadores contadores = cache.contadoresDesdeUltimaLeitura();
+        // Invalidações também contam: um intervalo só de escritas ainda é publicado
+        if (contadores.getAcertos() + contadores.getFalhas() + contadores.getRemocoes()
+                + contadores.getInvalidacoes() == 0) {
+            return;
+        }
+        metricsService.registrarCache(nome, contadores);
+        LOG.debugf("Cache %s: %s", nome, cache.getEstatisticas());
+    }
+
+    @Transactional
+    public void transmitirPorRestaurante(String restaurante, Long after, Consumer<AvaliacaoResponse> consumidor) {
+        try (Stream<Avaliacao> avaliacoes = avaliacaoRepository.streamByRestaurante(restaurante, resolverCursor(after))) {
+            transmitir(avaliacoes, consumidor);
+        }
+    }
+
+    private void transmitir(Stream<Avaliacao> avaliacoes, Consumer<AvaliacaoResponse> consumidor) {
+        avaliacoes.forEach(avaliacao -> {
+            consumidor.accept(converterParaResponse(avaliacao));
+            avaliacaoRepository.getEntityManager().detach(avaliacao);
+        });
+    }
+
+    // Busca limite + 1 registros: o excedente indica que existe próxima página
+    private PaginaAvaliacoesResponse montarPagina(List<Avaliacao> avaliacoes, int limite) {
+        boolean possuiProxima = avaliacoes.size() > limite;
+        List<Avaliacao> pagina = possuiProxima ? avaliacoes.subList(0, limite) : avaliacoes;
+
+        List<AvaliacaoResponse> itens = pagina.stream()
             .map(this::converterParaResponse)
             .collect(Collectors.toList());
+        Long proximoCursor = possuiProxima ? pagina.get(pagina.size() - 1).getId() : null;
+
+        return new PaginaAvaliacoesResponse(itens, limite, proximoCursor);
+    }
+
+    private int resolverLimite(Integer limit) {
+        if (limit == null) {
+            return limitePadrao;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        return Math.min(limit, limiteMaximo);
+    }
+
+    private long resolverCursor(Long after) {
+        return after != null ? after : 0L;
     }
 
     private void validarAvaliacao(AvaliacaoRequest request) {
@@ -94,5 +295,33 @@ public class AvaliacaoService {
             avaliacao.getEmailCliente()
         );
     }
-}
 
+    // Página por restaurante, cursor e limite: a mesma consulta keyset
+    private static final class ChavePagina {
+        private final String restaurante;
+        private final long cursor;
+        private final int limite;
+
+        private ChavePagina(String restaurante, long cursor, int limite) {
+            this.restaurante = restaurante;
+            this.cursor = cursor;
+            this.limite = limite;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ChavePagina outra)) {
+                return false;
+            }
+            return cursor == outra.cursor && limite == outra.limite && restaurante.equals(outra.restaurante);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(restaurante, cursor, limite);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package lambda.fase4.domain.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache read-through em memória, limitado por tamanho (LRU) e por TTL.
+ * O carregamento é feito fora do lock; se a mesma chave for invalidada ou substituída durante
+ * o carregamento, o valor carregado é devolvido mas não é guardado (evita recolocar dado
+ * antigo). A versão é controlada por chave, só enquanto há carregamento em andamento: invalidar
+ * uma chave não descarta o carregamento das demais.
+ * Cada JVM (container da Lambda) tem o seu cache: o TTL limita quanto tempo uma escrita
+ * feita em outro container pode ficar invisível.
+ */
+public class CacheLocal<K, V> {
+
+    private final int tamanhoMaximo;
+    private final long ttlNanos;
+    private final LongSupplier relogio;
+    private final Map<K, Entrada<V>> entradas;
+    // Chaves com carregamento em andamento, protegido pelo mesmo lock de entradas
+    private final Map<K, Carregamento> carregamentos = new HashMap<>();
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong remocoesPorTamanho = new AtomicLong();
+    private final AtomicLong remocoesPorTtl = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+    private Contadores ultimaLeitura = new Contadores(0, 0, 0, 0);
+
+    /**
+     * @param tamanhoMaximo entradas mantidas; zero desativa o cache
+     * @param ttl           tempo de vida de cada entrada desde o carregamento
+     */
+    public CacheLocal(int tamanhoMaximo, Duration ttl) {
+        this(tamanhoMaximo, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param relogio fonte de tempo em nanossegundos (testes avançam o TTL sem esperar)
+     */
+    CacheLocal(int tamanhoMaximo, Duration ttl, LongSupplier relogio) {
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.ttlNanos = ttl.toNanos();
+        this.relogio = relogio;
+        // accessOrder=true: a entrada mais antiga na iteração é a menos usada
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                if (size() > CacheLocal.this.tamanhoMaximo) {
+                    remocoesPorTamanho.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devolve o valor em cache ou o carrega; valores null não são guardados
+     */
+    public V obter(K chave, Function<K, V> carregar) {
+        if (tamanhoMaximo <= 0) {
+            return carregar.apply(chave);
+        }
+
+        Carregamento carregamento;
+        long versaoCarregamento;
+        synchronized (entradas) {
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada != null) {
+                if (relogio.getAsLong() - entrada.carregadaEm < ttlNanos) {
+                    acertos.incrementAndGet();
+                    return entrada.valor;
+                }
+                entradas.remove(chave);
+                remocoesPorTtl.incrementAndGet();
+            }
+            carregamento = carregamentos.computeIfAbsent(chave, k -> new Carregamento());
+            carregamento.emAndamento++;
+            versaoCarregamento = carregamento.versao;
+        }
+
+        falhas.incrementAndGet();
+        V valor = null;
+        try {
+            valor = carregar.apply(chave);
+            return valor;
+        } finally {
+            synchronized (entradas) {
+                if (valor != null && carregamento.versao == versaoCarregamento) {
+                    entradas.put(chave, new Entrada<>(valor, relogio.getAsLong()));
+                }
+                if (--carregamento.emAndamento == 0) {
+                    carregamentos.remove(chave);
+                }
+            }
+        }
+    }
+
+    /**
+     * Guarda um valor conhecido (ex.: recém-gravado), sem contar como acerto ou falha
+     */
+    public void colocar(K chave, V valor) {
+        if (tamanhoMaximo <= 0) {
+            return;
+        }
+        synchronized (entradas) {
+            novaVersao(chave);
+            entradas.put(chave, new Entrada<>(valor, relogio.getAsLong()));
+        }
+    }
+
+    public void invalidar(K chave) {
+        synchronized (entradas) {
+            novaVersao(chave);
+            if (entradas.remove(chave) != null) {
+                invalidacoes.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidarSe(Predicate<K> condicao) {
+        synchronized (entradas) {
+            carregamentos.forEach((chave, carregamento) -> {
+                if (condicao.test(chave)) {
+                    carregamento.versao++;
+                }
+            });
+            Iterator<K> it = entradas.keySet().iterator();
+            while (it.hasNext()) {
+                if (condicao.test(it.next())) {
+                    it.remove();
+                    invalidacoes.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Carregamento em andamento da chave não pode mais guardar o que leu
+    private void novaVersao(K chave) {
+        Carregamento carregamento = carregamentos.get(chave);
+        if (carregamento != null) {
+            carregamento.versao++;
+        }
+    }
+
+    /**
+     * Acertos, falhas, remoções e invalidações desde a chamada anterior (para publicar como métrica)
+     */
+    public synchronized Contadores contadoresDesdeUltimaLeitura() {
+        Contadores atuais = new Contadores(acertos.get(), falhas.get(),
+            remocoesPorTamanho.get() + remocoesPorTtl.get(), invalidacoes.get());
+        Contadores desde = new Contadores(
+            atuais.acertos - ultimaLeitura.acertos,
+            atuais.falhas - ultimaLeitura.falhas,
+            atuais.remocoes - ultimaLeitura.remocoes,
+            atuais.invalidacoes - ultimaLeitura.invalidacoes);
+        ultimaLeitura = atuais;
+        return desde;
+    }
+
+    public String getEstatisticas() {
+        int tamanho;
+        synchronized (entradas) {
+            tamanho = entradas.size();
+        }
+        long total = acertos.get() + falhas.get();
+        return String.format("%d/%d entradas, %d acertos, %d falhas (%.1f%% acerto), "
+                + "%d removidas por tamanho, %d por TTL, %d invalidadas",
+            tamanho, tamanhoMaximo, acertos.get(), falhas.get(),
+            total > 0 ? acertos.get() * 100.0 / total : 0.0,
+            remocoesPorTamanho.get(), remocoesPorTtl.get(), invalidacoes.get());
+    }
+
+    public static final class Contadores {
+        private final long acertos;
+        private final long falhas;
+        private final long remocoes;
+        private final long invalidacoes;
+
+        private Contadores(long acertos, long falhas, long remocoes, long invalidacoes) {
+            this.acertos = acertos;
+            this.falhas = falhas;
+            this.remocoes = remocoes;
+            this.invalidacoes = invalidacoes;
+        }
+
+        public long getAcertos() {
+            return acertos;
+        }
+
+        public long getFalhas() {
+            return falhas;
+        }
+
+        public long getRemocoes() {
+            return remocoes;
+        }
+
+        public long getInvalidacoes() {
+            return invalidacoes;
+        }
+    }
+
+    private static final class Carregamento {
+        private int emAndamento;
+        private long versao;
+    }
+
+    private static final class Entrada<V> {
+        private final V valor;
+        private final long carregadaEm;
+
+        private Entrada(V valor, long carregadaEm) {
+            this.valor = valor;
+            this.carregadaEm = carregadaEm;
+        }
+    }
+}
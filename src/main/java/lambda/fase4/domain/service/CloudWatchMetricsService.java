@@ -1,82 +1,266 @@
 package lambda.fase4.domain.service;
 
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import lambda.fase4.infraestructure.EmfMetricWriter;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.cloudwatch.model.Dimension;
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
 import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Métricas de avaliações agregadas em memória por restaurante e publicadas em lote
+ * (StatisticSet por restaurante), por tempo ou ao atingir o limite de datums.
+ * O registro não faz chamada de rede: apenas atualiza o buffer.
+ * Com metricas.backend=emf as métricas são escritas no stdout em Embedded Metric Format
+ * e o CloudWatchClient nunca é criado.
+ */
 @ApplicationScoped
 public class CloudWatchMetricsService {
 
     private static final Logger LOG = Logger.getLogger(CloudWatchMetricsService.class);
     private static final String NAMESPACE = "FeedbackSystem";
+    private static final int DATUMS_POR_RESTAURANTE = 2;
+    private static final Map<String, String> UNIDADES_EMF = Map.of(
+        "AvaliacoesRecebidas", "Count",
+        "NotaAvaliacao", "None");
+    private static final Map<String, String> UNIDADES_CACHE = Map.of(
+        "CacheAcertos", "Count",
+        "CacheFalhas", "Count",
+        "CacheRemocoes", "Count",
+        "CacheInvalidacoes", "Count");
+
+    private static final String BACKEND_EMF = "emf";
+
+    // Resolvido apenas no primeiro flush via API: no modo EMF o client não é instanciado
+    @Inject
+    Instance<CloudWatchClient> cloudWatchClient;
 
     @Inject
-    CloudWatchClient cloudWatchClient;
+    RelatorioInicializacao inicializacao;
+
+    @ConfigProperty(name = "metricas.backend", defaultValue = "api")
+    String backend;
+
+    // Limite de datums por chamada PutMetricData
+    @ConfigProperty(name = "metricas.lote.tamanho-maximo", defaultValue = "1000")
+    int tamanhoMaximoLote;
+
+    @ConfigProperty(name = "metricas.flush.intervalo", defaultValue = "60s")
+    Duration intervaloFlush;
+
+    private final ConcurrentHashMap<String, Agregado> buffer = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushEmAndamento = new AtomicBoolean();
+    private volatile long ultimoFlush = System.currentTimeMillis();
+    private final EmfMetricWriter emfWriter = new EmfMetricWriter(System.out, NAMESPACE);
 
     public void registrarAvaliacao(String restaurante, Integer nota) {
         try {
-            Dimension restauranteDimension = Dimension.builder()
-                .name("Restaurante")
-                .value(restaurante)
-                .build();
+            if (BACKEND_EMF.equalsIgnoreCase(backend)) {
+                emfWriter.escrever(
+                    Map.of("Restaurante", restaurante),
+                    Map.of("AvaliacoesRecebidas", 1, "NotaAvaliacao", nota),
+                    UNIDADES_EMF);
+                return;
+            }
+
+            // compute é atômico por chave: não há perda de incremento concorrente com o flush
+            buffer.compute(restaurante, (chave, agregado) -> {
+                Agregado atual = agregado != null ? agregado : new Agregado();
+                atual.adicionar(nota);
+                return atual;
+            });
 
-            MetricDatum metricDatum = MetricDatum.builder()
-                .metricName("AvaliacoesRecebidas")
-                .value(1.0)
+            boolean bufferCheio = buffer.size() * DATUMS_POR_RESTAURANTE >= tamanhoMaximoLote;
+            boolean intervaloVencido = System.currentTimeMillis() - ultimoFlush >= intervaloFlush.toMillis();
+            if ((bufferCheio || intervaloVencido) && !flushEmAndamento.get()) {
+                Thread.ofVirtual().name("cloudwatch-flush").start(this::descarregar);
+            }
+
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro ao registrar métrica no buffer");
+        }
+    }
+
+    /**
+     * Publica a quantidade de notificações do outbox no estado terminal (tentativas esgotadas),
+     * para alarme: qualquer valor acima de zero é alerta urgente que não chegou ao SQS
+     */
+    public void registrarOutboxEsgotadas(long esgotadas) {
+        try {
+            if (BACKEND_EMF.equalsIgnoreCase(backend)) {
+                emfWriter.escrever(Map.of("Outbox", "notificacao_outbox"),
+                    Map.of("OutboxNotificacoesEsgotadas", esgotadas),
+                    Map.of("OutboxNotificacoesEsgotadas", "Count"));
+                return;
+            }
+
+            publicar(List.of(MetricDatum.builder()
+                .metricName("OutboxNotificacoesEsgotadas")
+                .value((double) esgotadas)
                 .unit(StandardUnit.COUNT)
                 .timestamp(Instant.now())
-                .dimensions(restauranteDimension)
-                .build();
+                .dimensions(Dimension.builder().name("Outbox").value("notificacao_outbox").build())
+                .build()));
 
-            PutMetricDataRequest request = PutMetricDataRequest.builder()
-                .namespace(NAMESPACE)
-                .metricData(metricDatum)
-                .build();
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro ao registrar métrica do outbox");
+        }
+    }
 
-            cloudWatchClient.putMetricData(request);
+    /**
+     * Publica os contadores de um cache local desde a última publicação (chamada periódica,
+     * fora do caminho das requisições)
+     */
+    public void registrarCache(String cache, CacheLocal.Contadores contadores) {
+        try {
+            Map<String, Number> valores = new LinkedHashMap<>();
+            valores.put("CacheAcertos", contadores.getAcertos());
+            valores.put("CacheFalhas", contadores.getFalhas());
+            valores.put("CacheRemocoes", contadores.getRemocoes());
+            valores.put("CacheInvalidacoes", contadores.getInvalidacoes());
 
-            // Também registrar a nota
-            registrarNota(restaurante, nota);
+            if (BACKEND_EMF.equalsIgnoreCase(backend)) {
+                emfWriter.escrever(Map.of("Cache", cache), valores, UNIDADES_CACHE);
+                return;
+            }
 
-            LOG.infof("Métrica registrada no CloudWatch: %s", restaurante);
+            Dimension cacheDimension = Dimension.builder().name("Cache").value(cache).build();
+            Instant agora = Instant.now();
+            List<MetricDatum> datums = new ArrayList<>();
+            valores.forEach((nome, valor) -> datums.add(MetricDatum.builder()
+                .metricName(nome)
+                .value(valor.doubleValue())
+                .unit(StandardUnit.COUNT)
+                .timestamp(agora)
+                .dimensions(cacheDimension)
+                .build()));
+            publicar(datums);
 
         } catch (Exception e) {
-            LOG.errorf(e, "Erro ao registrar métrica no CloudWatch");
+            LOG.errorf(e, "Erro ao registrar métricas do cache %s", cache);
         }
     }
 
-    private void registrarNota(String restaurante, Integer nota) {
+    @Scheduled(every = "${metricas.flush.intervalo:60s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void agendarFlush() {
+        descarregar();
+    }
+
+    void aoEncerrar(@Observes ShutdownEvent event) {
+        descarregar();
+    }
+
+    /**
+     * Publica tudo o que está no buffer. Os handlers Lambda chamam ao fim de cada invocação:
+     * congelado, o ambiente não executa o flush agendado e pode ser descartado com o buffer cheio.
+     */
+    public void descarregar() {
+        if (!flushEmAndamento.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            Dimension restauranteDimension = Dimension.builder()
-                .name("Restaurante")
-                .value(restaurante)
-                .build();
+            ultimoFlush = System.currentTimeMillis();
+            List<MetricDatum> datums = new ArrayList<>();
 
-            MetricDatum metricDatum = MetricDatum.builder()
-                .metricName("NotaAvaliacao")
-                .value(nota.doubleValue())
-                .unit(StandardUnit.NONE)
-                .timestamp(Instant.now())
-                .dimensions(restauranteDimension)
-                .build();
+            for (String restaurante : buffer.keySet()) {
+                Agregado agregado = buffer.remove(restaurante);
+                if (agregado == null) {
+                    continue;
+                }
+                adicionarDatums(datums, restaurante, agregado);
+                if (datums.size() + DATUMS_POR_RESTAURANTE > tamanhoMaximoLote) {
+                    publicar(datums);
+                    datums = new ArrayList<>();
+                }
+            }
+            if (!datums.isEmpty()) {
+                publicar(datums);
+            }
+        } finally {
+            flushEmAndamento.set(false);
+        }
+    }
+
+    private void adicionarDatums(List<MetricDatum> datums, String restaurante, Agregado agregado) {
+        Dimension restauranteDimension = Dimension.builder()
+            .name("Restaurante")
+            .value(restaurante)
+            .build();
+
+        datums.add(MetricDatum.builder()
+            .metricName("AvaliacoesRecebidas")
+            .statisticValues(StatisticSet.builder()
+                .sampleCount((double) agregado.quantidade)
+                .sum((double) agregado.quantidade)
+                .minimum(1.0)
+                .maximum(1.0)
+                .build())
+            .unit(StandardUnit.COUNT)
+            .timestamp(agregado.inicio)
+            .dimensions(restauranteDimension)
+            .build());
 
+        datums.add(MetricDatum.builder()
+            .metricName("NotaAvaliacao")
+            .statisticValues(StatisticSet.builder()
+                .sampleCount((double) agregado.quantidade)
+                .sum((double) agregado.somaNotas)
+                .minimum((double) agregado.notaMinima)
+                .maximum((double) agregado.notaMaxima)
+                .build())
+            .unit(StandardUnit.NONE)
+            .timestamp(agregado.inicio)
+            .dimensions(restauranteDimension)
+            .build());
+    }
+
+    private void publicar(List<MetricDatum> datums) {
+        try {
             PutMetricDataRequest request = PutMetricDataRequest.builder()
                 .namespace(NAMESPACE)
-                .metricData(metricDatum)
+                .metricData(datums)
                 .build();
 
-            cloudWatchClient.putMetricData(request);
+            inicializacao.obter("CloudWatchClient", cloudWatchClient).putMetricData(request);
+            LOG.infof("Métricas publicadas no CloudWatch: %d datums", datums.size());
 
         } catch (Exception e) {
-            LOG.errorf(e, "Erro ao registrar nota no CloudWatch");
+            LOG.errorf(e, "Erro ao publicar %d métricas no CloudWatch", datums.size());
         }
     }
-}
 
+    // Acumulado de um restaurante desde o último flush; alterado apenas dentro de buffer.compute
+    private static final class Agregado {
+        private final Instant inicio = Instant.now();
+        private long quantidade;
+        private long somaNotas;
+        private int notaMinima = Integer.MAX_VALUE;
+        private int notaMaxima = Integer.MIN_VALUE;
+
+        private void adicionar(int nota) {
+            quantidade++;
+            somaNotas += nota;
+            notaMinima = Math.min(notaMinima, nota);
+            notaMaxima = Math.max(notaMaxima, nota);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package lambda.fase4.domain.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debounce de alertas urgentes por restaurante: no máximo uma notificação por restaurante a cada
+ * janela. A janela não fica em memória: o NotificacaoOutboxRelay a deriva do último envio do
+ * restaurante no outbox, segura as pendentes enquanto ela está aberta e, quando vence, publica as
+ * acumuladas como um único resumo (quantidade, período e piores comentários) montado aqui.
+ */
+@ApplicationScoped
+public class CoalescedorAlertas {
+
+    private static final Comparator<NotificacaoUrgenciaDTO> PIOR_PRIMEIRO =
+        Comparator.comparing(NotificacaoUrgenciaDTO::getNota);
+
+    // Zero desativa o agrupamento
+    @ConfigProperty(name = "alertas.coalescencia.janela", defaultValue = "5m")
+    Duration janela;
+
+    // Piores comentários mantidos no resumo
+    @ConfigProperty(name = "alertas.coalescencia.max-comentarios", defaultValue = "3")
+    int maxComentarios;
+
+    private final AtomicLong agrupados = new AtomicLong();
+    private final AtomicLong resumos = new AtomicLong();
+
+    public boolean isAtivo() {
+        return !janela.isZero() && !janela.isNegative();
+    }
+
+    /**
+     * Restaurantes com envio depois deste instante ainda estão com a janela aberta
+     */
+    public LocalDateTime inicioJanelaAberta(LocalDateTime agora) {
+        return agora.minus(janela);
+    }
+
+    /**
+     * Resumo de dois ou mais alertas do mesmo restaurante, na ordem de gravação
+     */
+    public NotificacaoUrgenciaDTO resumir(List<NotificacaoUrgenciaDTO> alertas) {
+        NotificacaoUrgenciaDTO ultimo = alertas.get(alertas.size() - 1);
+        int notaMinima = Integer.MAX_VALUE;
+        LocalDateTime inicioPeriodo = null;
+        LocalDateTime fimPeriodo = null;
+        List<NotificacaoUrgenciaDTO> comComentario = new ArrayList<>();
+
+        for (NotificacaoUrgenciaDTO alerta : alertas) {
+            notaMinima = Math.min(notaMinima, alerta.getNota());
+            LocalDateTime data = alerta.getDataAvaliacao();
+            if (data != null) {
+                inicioPeriodo = inicioPeriodo == null || data.isBefore(inicioPeriodo) ? data : inicioPeriodo;
+                fimPeriodo = fimPeriodo == null || data.isAfter(fimPeriodo) ? data : fimPeriodo;
+            }
+            if (alerta.getComentario() != null && !alerta.getComentario().isBlank()) {
+                comComentario.add(alerta);
+            }
+        }
+
+        // Ordenação estável: em empate fica o mais antigo
+        comComentario.sort(PIOR_PRIMEIRO);
+
+        NotificacaoUrgenciaDTO resumo = new NotificacaoUrgenciaDTO(
+            ultimo.getAvaliacaoId(), ultimo.getRestaurante(), notaMinima, null, fimPeriodo);
+        resumo.setQuantidade(alertas.size());
+        resumo.setInicioPeriodo(inicioPeriodo);
+        resumo.setFimPeriodo(fimPeriodo);
+        resumo.setComentarios(comComentario.stream()
+            .limit(maxComentarios)
+            .map(NotificacaoUrgenciaDTO::getComentario)
+            .toList());
+
+        agrupados.addAndGet(alertas.size());
+        resumos.incrementAndGet();
+        return resumo;
+    }
+
+    public String getEstatisticas() {
+        return String.format("Alertas: %d agrupados em %d resumos", agrupados.get(), resumos.get());
+    }
+}
@@ -1,5 +1,14 @@
 package lambda.fase4.domain.service;
 
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.time.Duration;
+
+/**
+ * Singletons de email fora do CDI (usados também no priming). A fila é
+ * dimensionada pelo MicroProfile Config: email.fila.*
+ */
 public class EmailConfig {
     private static final String SMTP_HOST = "smtp.gmail.com";
     private static final int SMTP_PORT = 587;
@@ -14,11 +23,12 @@ public class EmailConfig {
     private static final String ALERT_EMAIL = "henriquaalves2020@gmail.com";
 
     private static EmailService emailService;
+    private static FilaEnvioEmail filaEnvioEmail;
 
     /**
      * Retorna uma instância singleton do EmailService
      */
-    public static EmailService getEmailService() {
+    public static synchronized EmailService getEmailService() {
         if (emailService == null) {
             emailService = new EmailService(
                     SMTP_HOST,
@@ -30,6 +40,43 @@ public class EmailConfig {
         return emailService;
     }
 
+    /**
+     * Retorna a fila assíncrona singleton na frente do EmailService.
+     * No encerramento da JVM a fila é drenada antes de fechar as conexões SMTP.
+     */
+    public static synchronized FilaEnvioEmail getFilaEnvioEmail() {
+        if (filaEnvioEmail == null) {
+            EmailService service = getEmailService();
+            Config config = ConfigProvider.getConfig();
+            FilaEnvioEmail fila = new FilaEnvioEmail(
+                    service,
+                    config.getOptionalValue("email.fila.capacidade", Integer.class).orElse(1000),
+                    config.getOptionalValue("email.fila.workers", Integer.class).orElse(4),
+                    config.getOptionalValue("email.fila.max-tentativas", Integer.class).orElse(3),
+                    config.getOptionalValue("email.fila.backoff", Duration.class).orElse(Duration.ofMillis(500)).toMillis()
+            );
+            Duration prazoDrenagem = config.getOptionalValue("email.fila.prazo-drenagem", Duration.class)
+                    .orElse(Duration.ofSeconds(10));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                fila.encerrar(prazoDrenagem);
+                service.fechar();
+            }, "email-fila-shutdown"));
+            filaEnvioEmail = fila;
+        }
+        return filaEnvioEmail;
+    }
+
+    /**
+     * Aguarda os envios pendentes da fila, se ela já foi criada; true se não restou nenhum
+     */
+    public static boolean aguardarFilaEnvioEmail(Duration prazo) {
+        FilaEnvioEmail fila;
+        synchronized (EmailConfig.class) {
+            fila = filaEnvioEmail;
+        }
+        return fila == null || fila.aguardarPendentes(prazo);
+    }
+
     /**
      * Retorna o email para alertas
      */
@@ -37,4 +84,3 @@ public class EmailConfig {
         return ALERT_EMAIL;
     }
 }
-
@@ -6,22 +6,40 @@ import javax.mail.internet.MimeMessage;
 import java.util.Properties;
 
 /**
- * Serviço para envio de emails via SMTP
+ * Serviço para envio de emails via SMTP, usando um pool de conexões persistentes
  */
 public class EmailService {
 
+    private static final int MAX_CONEXOES = 4;
+    private static final long OCIOSIDADE_MAXIMA_MILLIS = 120_000;
+    private static final long VALIDAR_APOS_MILLIS = 10_000;
+    private static final int TIMEOUT_MILLIS = 10_000;
+
     private final Session session;
     private final String fromEmail;
+    private final SmtpTransportPool transportPool;
 
     public EmailService(String host, int port, String username, String password) {
+        this(host, port, username, password, true, MAX_CONEXOES);
+    }
+
+    /**
+     * @param starttls    false permite apontar para um servidor SMTP local de testes sem TLS
+     * @param maxConexoes tamanho do pool de conexões SMTP
+     */
+    public EmailService(String host, int port, String username, String password, boolean starttls, int maxConexoes) {
         this.fromEmail = username;
 
         Properties props = new Properties();
         props.put("mail.smtp.host", host);
         props.put("mail.smtp.port", port);
+        props.put("mail.smtp.user", username);
         props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.starttls.enable", String.valueOf(starttls));
         props.put("mail.transport.protocol", "smtp");
+        props.put("mail.smtp.connectiontimeout", TIMEOUT_MILLIS);
+        props.put("mail.smtp.timeout", TIMEOUT_MILLIS);
+        props.put("mail.smtp.writetimeout", TIMEOUT_MILLIS);
 
         // Criar sessão com autenticação
         this.session = Session.getInstance(props, new Authenticator() {
@@ -30,6 +48,42 @@ public class EmailService {
                 return new PasswordAuthentication(username, password);
             }
         });
+
+        this.transportPool = new SmtpTransportPool(session, maxConexoes, OCIOSIDADE_MAXIMA_MILLIS, VALIDAR_APOS_MILLIS);
+    }
+
+    /**
+     * Fecha as conexões SMTP mantidas no pool
+     */
+    public void fechar() {
+        transportPool.close();
+    }
+
+    /**
+     * Abre uma conexão SMTP autenticada e a deixa ociosa no pool, para que o primeiro envio
+     * não pague o handshake (usado após a restauração de um snapshot)
+     */
+    public void preconectar() throws MessagingException {
+        transportPool.devolver(transportPool.obter());
+    }
+
+    /**
+     * Renderiza todos os templates e monta uma mensagem MIME sem enviar nada,
+     * carregando as classes de formatação e do javax.mail antes do primeiro envio real
+     */
+    public void aquecerTemplates() throws MessagingException {
+        construirEmailConfirmacao("Priming", 5, "priming");
+        String html = null;
+        for (int nota = 1; nota <= 5; nota++) {
+            html = construirEmailNotificacaoAdmin("Priming", nota, "priming", fromEmail);
+        }
+
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(fromEmail));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(fromEmail));
+        message.setSubject("Priming");
+        message.setContent(html, "text/html; charset=utf-8");
+        message.saveChanges();
     }
 
     /**
@@ -45,7 +99,7 @@ public class EmailService {
             String htmlContent = construirEmailConfirmacao(restaurante, nota, comentario);
             message.setContent(htmlContent, "text/html; charset=utf-8");
 
-            Transport.send(message);
+            enviar(message);
 
         } catch (MessagingException e) {
             throw new RuntimeException("Erro ao enviar email: " + e.getMessage(), e);
@@ -53,45 +107,84 @@ public class EmailService {
     }
 
     /**
-     * Envia email de alerta para avaliações baixas
+     * Envia notificação para admin sobre nova avaliação (qualquer nota)
      */
-    public void enviarAlertaAvaliacaoBaixa(String destinatario, String restaurante, Integer nota, String comentario, String emailCliente) {
+    public void enviarNotificacaoAdmin(String destinatario, String restaurante, Integer nota, String comentario, String emailCliente) {
         try {
             MimeMessage message = new MimeMessage(session);
             message.setFrom(new InternetAddress(fromEmail));
             message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(destinatario));
-            message.setSubject("URGENTE: Avaliação Baixa - " + restaurante);
+            message.setSubject("Nova Avaliação Recebida - " + restaurante);
 
-            String htmlContent = construirEmailAlerta(restaurante, nota, comentario, emailCliente);
+            String htmlContent = construirEmailNotificacaoAdmin(restaurante, nota, comentario, emailCliente);
             message.setContent(htmlContent, "text/html; charset=utf-8");
 
-            Transport.send(message);
+            enviar(message);
 
         } catch (MessagingException e) {
-            throw new RuntimeException("Erro ao enviar email de alerta: " + e.getMessage(), e);
+            throw new RuntimeException("Erro ao enviar notificação admin: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Envia notificação para admin sobre nova avaliação (qualquer nota)
+     * Envia o relatório semanal já formatado em HTML
+     *
+     * @return Message-ID atribuído à mensagem
      */
-    public void enviarNotificacaoAdmin(String destinatario, String restaurante, Integer nota, String comentario, String emailCliente) {
+    public String enviarRelatorioSemanal(String destinatario, String assunto, String corpoHtml) {
         try {
             MimeMessage message = new MimeMessage(session);
             message.setFrom(new InternetAddress(fromEmail));
             message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(destinatario));
-            message.setSubject("Nova Avaliação Recebida - " + restaurante);
-
-            String htmlContent = construirEmailNotificacaoAdmin(restaurante, nota, comentario, emailCliente);
-            message.setContent(htmlContent, "text/html; charset=utf-8");
+            message.setSubject(assunto);
+            message.setContent(corpoHtml, "text/html; charset=utf-8");
 
-            Transport.send(message);
+            enviar(message);
+            return message.getMessageID();
 
         } catch (MessagingException e) {
-            throw new RuntimeException("Erro ao enviar notificação admin: " + e.getMessage(), e);
+            throw new RuntimeException("Erro ao enviar relatório semanal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Envia por uma conexão do pool. Em falha de conexão (servidor encerrou, timeout)
+     * a conexão é descartada e o envio é refeito uma vez em uma nova conexão.
+     */
+    private void enviar(MimeMessage message) throws MessagingException {
+        message.saveChanges();
+        Address[] destinatarios = message.getAllRecipients();
+
+        for (int tentativa = 1; ; tentativa++) {
+            Transport transport = transportPool.obter();
+            try {
+                transport.sendMessage(message, destinatarios);
+                transportPool.devolver(transport);
+                return;
+            } catch (MessagingException e) {
+                if (destinatarioRejeitado(e)) {
+                    // A conexão continua válida
+                    transportPool.devolver(transport);
+                    throw e;
+                }
+                transportPool.descartar(transport);
+                if (tentativa >= 2) {
+                    throw e;
+                }
+            }
         }
     }
 
+    /**
+     * Destinatário recusado pelo servidor (RCPT TO). Conexão perdida também chega como
+     * SMTPSendFailedException (subclasse de SendFailedException), mas sem endereços inválidos.
+     */
+    private static boolean destinatarioRejeitado(MessagingException e) {
+        return e instanceof SendFailedException falha
+            && falha.getInvalidAddresses() != null
+            && falha.getInvalidAddresses().length > 0;
+    }
+
     private String construirEmailConfirmacao(String restaurante, Integer nota, String comentario) {
         return String.format("""
             <html>
@@ -122,45 +215,6 @@ public class EmailService {
         );
     }
 
-    private String construirEmailAlerta(String restaurante, Integer nota, String comentario, String emailCliente) {
-        return String.format("""
-            <html>
-            <body style="font-family: Arial, sans-serif; line-height: 1.6; color: #333;">
-                <div style="max-width: 600px; margin: 0 auto; padding: 20px; border: 2px solid #f44336; border-radius: 5px;">
-                    <h2 style="color: #f44336;">⚠️ ALERTA: Avaliação Baixa Recebida</h2>
-                    <p>Uma avaliação negativa foi registrada para o restaurante <strong>%s</strong></p>
-                    
-                    <div style="background-color: #ffebee; padding: 15px; border-radius: 5px; margin: 20px 0; border-left: 4px solid #f44336;">
-                        <p><strong>Nota:</strong> <span style="color: #f44336; font-size: 18px;">%s/5</span> ⭐</p>
-                        <p><strong>Comentário do Cliente:</strong></p>
-                        <p style="font-style: italic;">"%s"</p>
-                        <p><strong>Email do Cliente:</strong> %s</p>
-                    </div>
-                    
-                    <div style="background-color: #fff3cd; padding: 15px; border-radius: 5px; margin: 20px 0;">
-                        <p><strong>Ação Recomendada:</strong></p>
-                        <ul>
-                            <li>Entre em contato com o cliente o mais rápido possível</li>
-                            <li>Investigue o problema relatado</li>
-                            <li>Ofereça uma solução ou compensação adequada</li>
-                        </ul>
-                    </div>
-                    
-                    <hr style="border: none; border-top: 1px solid #ddd; margin: 20px 0;">
-                    <p style="font-size: 12px; color: #666;">
-                        Este é um alerta automático do sistema de feedback.
-                    </p>
-                </div>
-            </body>
-            </html>
-            """,
-                restaurante,
-                nota,
-                comentario != null ? comentario : "Sem comentário",
-                emailCliente != null ? emailCliente : "Não informado"
-        );
-    }
-
     private String construirEmailNotificacaoAdmin(String restaurante, Integer nota, String comentario, String emailCliente) {
         String corNota = nota <= 2 ? "#f44336" : (nota <= 3 ? "#ff9800" : "#4CAF50");
         String emoji = nota <= 2 ? "😟" : (nota <= 3 ? "😐" : "😊");
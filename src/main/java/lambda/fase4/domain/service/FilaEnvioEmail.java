@@ -0,0 +1,178 @@
+package lambda.fase4.domain.service;
+
+import org.jboss.logging.Logger;
+
+import javax.mail.SendFailedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila assíncrona de envio de emails na frente do EmailService: fila limitada
+ * (backpressure), workers em virtual threads, retentativa com backoff exponencial
+ * com jitter e drenagem no encerramento.
+ */
+public class FilaEnvioEmail {
+
+    private static final Logger LOG = Logger.getLogger(FilaEnvioEmail.class);
+    private static final long BACKOFF_MAXIMO_MILLIS = 30_000;
+
+    @FunctionalInterface
+    public interface TarefaEmail {
+        void enviar(EmailService emailService) throws Exception;
+    }
+
+    private final EmailService emailService;
+    private final BlockingQueue<ItemFila> fila;
+    private final int maxTentativas;
+    private final long backoffBaseMillis;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger pendentes = new AtomicInteger(); // na fila + em andamento
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong rejeitados = new AtomicLong();
+    private volatile boolean aceitando = true;
+
+    public FilaEnvioEmail(EmailService emailService, int capacidade, int quantidadeWorkers,
+                          int maxTentativas, long backoffBaseMillis) {
+        this.emailService = emailService;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.maxTentativas = maxTentativas;
+        this.backoffBaseMillis = backoffBaseMillis;
+
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            workers.add(Thread.ofVirtual().name("email-worker-", i).start(this::processar));
+        }
+    }
+
+    /**
+     * Enfileira o envio aguardando no máximo {@code espera} por espaço na fila.
+     * Retorna false se a fila continuar cheia (ou estiver encerrada): cabe ao chamador decidir.
+     */
+    public boolean enfileirar(String descricao, TarefaEmail tarefa, Duration espera) {
+        if (!aceitando) {
+            rejeitados.incrementAndGet();
+            return false;
+        }
+        pendentes.incrementAndGet();
+        try {
+            boolean aceito = fila.offer(new ItemFila(descricao, tarefa), espera.toMillis(), TimeUnit.MILLISECONDS);
+            if (!aceito) {
+                pendentes.decrementAndGet();
+                rejeitados.incrementAndGet();
+                LOG.warnf("Fila de emails cheia, envio rejeitado: %s", descricao);
+            }
+            return aceito;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendentes.decrementAndGet();
+            rejeitados.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Para de aceitar novos envios e aguarda a fila esvaziar até o prazo; depois interrompe os workers
+     */
+    public void encerrar(Duration prazo) {
+        aceitando = false;
+        boolean drenada = aguardarPendentes(prazo);
+        if (!drenada) {
+            LOG.warnf("Encerrando fila de emails com %d envios pendentes", getPendentes());
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Aguarda até que não haja envios na fila nem em andamento
+     */
+    public boolean aguardarPendentes(Duration prazo) {
+        long limite = System.nanoTime() + prazo.toNanos();
+        while (getPendentes() > 0) {
+            if (System.nanoTime() >= limite) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getPendentes() {
+        return pendentes.get();
+    }
+
+    public String getEstatisticas() {
+        return String.format("Fila de emails: %d pendentes, %d enviados, %d falhas, %d rejeitados",
+            getPendentes(), enviados.get(), falhas.get(), rejeitados.get());
+    }
+
+    private void processar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ItemFila item;
+            try {
+                item = fila.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                executarComRetentativas(item);
+            } finally {
+                pendentes.decrementAndGet();
+            }
+        }
+    }
+
+    private void executarComRetentativas(ItemFila item) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                item.tarefa.enviar(emailService);
+                enviados.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                boolean permanente = e.getCause() instanceof SendFailedException;
+                if (permanente || tentativa >= maxTentativas) {
+                    falhas.incrementAndGet();
+                    LOG.errorf(e, "Falha definitiva ao enviar email (%s) após %d tentativa(s)", item.descricao, tentativa);
+                    return;
+                }
+                long espera = calcularBackoff(tentativa);
+                LOG.warnf("Falha ao enviar email (%s), tentativa %d; nova tentativa em %d ms",
+                    item.descricao, tentativa, espera);
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    falhas.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Backoff exponencial com jitter total: aleatório entre 0 e base * 2^(tentativa-1)
+    private long calcularBackoff(int tentativa) {
+        long teto = Math.min(BACKOFF_MAXIMO_MILLIS, backoffBaseMillis << Math.min(tentativa - 1, 16));
+        return ThreadLocalRandom.current().nextLong(teto + 1);
+    }
+
+    private static final class ItemFila {
+        private final String descricao;
+        private final TarefaEmail tarefa;
+
+        private ItemFila(String descricao, TarefaEmail tarefa) {
+            this.descricao = descricao;
+            this.tarefa = tarefa;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package lambda.fase4.domain.service;
+
+import com.google.gson.Gson;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
+import lambda.fase4.domain.model.NotificacaoOutbox;
+import lambda.fase4.domain.repository.NotificacaoOutboxRepository;
+import lambda.fase4.infraestructure.BancoDesativado;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Relay do outbox de notificações: drena as pendentes para o SQS em lotes de até 10
+ * (limite do SendMessageBatch), fora da transação de gravação das avaliações. Também aplica
+ * a janela de agrupamento de alertas (CoalescedorAlertas): como a janela é derivada do outbox,
+ * o resumo sai na primeira execução após o vencimento, em qualquer instância.
+ * Além do agendamento periódico, cada commit com nova notificação dispara um envio após
+ * um linger curto ou assim que houver um lote completo. Entradas recusadas contam uma tentativa
+ * no outbox e são reenviadas na próxima execução, depois de liberar os bloqueios; ao esgotar
+ * notificacao.outbox.max-tentativas a notificação vai para o estado terminal (esgotadaEm), com log
+ * de erro, e a limpeza horária publica a métrica OutboxNotificacoesEsgotadas até a retenção vencer.
+ *
+ * Entrega ao menos uma vez: um crash entre o envio ao SQS e o commit de enviadaEm reenvia o lote.
+ * Em filas FIFO o messageDeduplicationId descarta o reenvio dentro de 5 minutos; em filas standard
+ * o consumidor pode receber a mesma notificação duas vezes. Sem duplicidade exige fila .fifo.
+ */
+@ApplicationScoped
+public class NotificacaoOutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(NotificacaoOutboxRelay.class);
+    private static final int TAMANHO_LOTE_SQS = 10;
+    // Linhas bloqueadas por lote: as de um mesmo restaurante viram uma única entrada
+    private static final int LINHAS_POR_LOTE = 100;
+
+    @Inject
+    NotificacaoOutboxRepository outboxRepository;
+
+    // Criado no primeiro envio ao SQS
+    @Inject
+    Instance<SqsClient> sqsClient;
+
+    @Inject
+    RelatorioInicializacao inicializacao;
+
+    @Inject
+    CoalescedorAlertas coalescedor;
+
+    @Inject
+    Gson gson;
+
+    @Inject
+    CloudWatchMetricsService metricsService;
+
+    @ConfigProperty(name = "aws.sqs.queue.notificacao.url")
+    String sqsQueueUrl;
+
+    @ConfigProperty(name = "notificacao.outbox.max-tentativas", defaultValue = "10")
+    int maxTentativas;
+
+    @ConfigProperty(name = "notificacao.outbox.lotes-por-execucao", defaultValue = "50")
+    int lotesPorExecucao;
+
+    @ConfigProperty(name = "notificacao.outbox.retencao-horas", defaultValue = "24")
+    int retencaoHoras;
+
+    // Notificações esgotadas ficam para análise (e reenvio manual) por este período
+    @ConfigProperty(name = "notificacao.outbox.retencao-esgotadas-dias", defaultValue = "14")
+    int retencaoEsgotadasDias;
+
+    // Espera máxima após uma nova notificação antes do envio, para completar o lote
+    @ConfigProperty(name = "notificacao.outbox.linger", defaultValue = "50ms")
+    Duration linger;
+
+    private final AtomicReference<Thread> envioAgendado = new AtomicReference<>();
+    private final AtomicInteger registradasDesdeEnvio = new AtomicInteger();
+
+    @Scheduled(every = "${notificacao.outbox.intervalo:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+        skipExecutionIf = BancoDesativado.class)
+    void agendarPublicacao() {
+        publicarPendentes();
+    }
+
+    @Scheduled(every = "1h", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+        skipExecutionIf = BancoDesativado.class)
+    void limparEnviadas() {
+        long esgotadas = limparEContarEsgotadas();
+        // Fora da transação: a publicação via API é uma chamada de rede
+        metricsService.registrarOutboxEsgotadas(esgotadas);
+    }
+
+    /**
+     * Remove as enviadas após a retenção, leva ao estado terminal as pendentes acima do limite de
+     * tentativas, remove as esgotadas após a retenção delas e retorna quantas esgotadas restam
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    long limparEContarEsgotadas() {
+        LocalDateTime agora = LocalDateTime.now();
+        long removidas = outboxRepository.removerEnviadasAntesDe(agora.minusHours(retencaoHoras));
+        if (removidas > 0) {
+            LOG.infof("Outbox: %d notificações enviadas removidas", removidas);
+        }
+
+        long marcadas = outboxRepository.marcarEsgotadas(maxTentativas, agora);
+        if (marcadas > 0) {
+            LOG.errorf("Outbox: %d notificações pendentes com %d ou mais tentativas passaram a esgotadas",
+                marcadas, maxTentativas);
+        }
+        long expiradas = outboxRepository.removerEsgotadasAntesDe(agora.minusDays(retencaoEsgotadasDias));
+        if (expiradas > 0) {
+            LOG.warnf("Outbox: %d notificações esgotadas removidas após %d dias sem reenvio",
+                expiradas, retencaoEsgotadasDias);
+        }
+
+        long esgotadas = outboxRepository.contarEsgotadas();
+        if (esgotadas > 0) {
+            LOG.errorf("Outbox: %d notificações esgotadas não foram entregues ao SQS (mais antiga em %s)",
+                esgotadas, outboxRepository.esgotadaMaisAntiga());
+        }
+        return esgotadas;
+    }
+
+    /**
+     * Publica as notificações pendentes até esvaziar o outbox, atingir o limite de lotes por execução
+     * ou um lote ter falhas (reenviadas só na próxima execução)
+     */
+    public int publicarPendentes() {
+        int total = 0;
+        for (int i = 0; i < lotesPorExecucao; i++) {
+            int processadas = publicarLote();
+            total += processadas;
+            if (processadas < TAMANHO_LOTE_SQS) {
+                break;
+            }
+        }
+        if (total > 0) {
+            LOG.infof("Outbox: %d mensagens processadas. %s", total, coalescedor.getEstatisticas());
+        }
+        return total;
+    }
+
+    /**
+     * Cada lote roda na sua própria transação: as linhas ficam bloqueadas (SKIP LOCKED)
+     * até o resultado do SQS ser registrado, evitando que outro relay as publique em paralelo.
+     * As pendentes de um mesmo restaurante viram uma única mensagem (resumo se forem várias);
+     * restaurantes com a janela de agrupamento aberta ficam para uma execução posterior.
+     * Retorna a quantidade de mensagens aceitas pelo SQS.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int publicarLote() {
+        LocalDateTime agora = LocalDateTime.now();
+        List<NotificacaoOutbox> pendentes = coalescedor.isAtivo()
+            ? outboxRepository.bloquearPendentesForaDaJanela(LINHAS_POR_LOTE, maxTentativas, coalescedor.inicioJanelaAberta(agora))
+            : outboxRepository.bloquearPendentes(TAMANHO_LOTE_SQS, maxTentativas);
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<NotificacaoOutbox>> porEntryId = new HashMap<>();
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(TAMANHO_LOTE_SQS);
+        boolean filaFifo = sqsQueueUrl.endsWith(".fifo");
+
+        for (List<NotificacaoOutbox> grupo : agruparPorRestaurante(pendentes)) {
+            NotificacaoOutbox primeira = grupo.get(0);
+            String entryId = String.valueOf(primeira.getId());
+            porEntryId.put(entryId, grupo);
+
+            SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder()
+                .id(entryId)
+                .messageBody(corpo(grupo))
+                .messageAttributes(Map.of("outboxId", MessageAttributeValue.builder()
+                    .dataType("Number")
+                    .stringValue(entryId)
+                    .build()));
+
+            // Em filas FIFO o SQS descarta reenvios do mesmo grupo do outbox (ex.: crash antes do commit)
+            if (filaFifo) {
+                String ultimoId = grupo.size() > 1 ? "-" + grupo.get(grupo.size() - 1).getId() : "";
+                entry.messageGroupId(primeira.getRestaurante())
+                    .messageDeduplicationId("outbox-" + entryId + ultimoId);
+            }
+            entries.add(entry.build());
+        }
+
+        // Uma única chamada por lote: o que falhar conta uma tentativa e fica para a próxima
+        // execução, sem esperar com as linhas bloqueadas
+        int enviadas = 0;
+        try {
+            SendMessageBatchResponse response = inicializacao.obter("SqsClient", sqsClient).sendMessageBatch(SendMessageBatchRequest.builder()
+                .queueUrl(sqsQueueUrl)
+                .entries(entries)
+                .build());
+
+            for (SendMessageBatchResultEntry sucesso : response.successful()) {
+                porEntryId.get(sucesso.id()).forEach(notificacao -> notificacao.setEnviadaEm(agora));
+                enviadas++;
+            }
+            for (BatchResultErrorEntry falha : response.failed()) {
+                String erro = falha.code() + ": " + falha.message();
+                porEntryId.get(falha.id()).forEach(notificacao -> registrarFalha(notificacao, erro));
+                LOG.warnf("Falha ao publicar notificação %s no SQS: %s", falha.id(), falha.message());
+            }
+
+        } catch (Exception e) {
+            LOG.errorf(e, "Erro ao publicar lote do outbox no SQS");
+            porEntryId.values().forEach(grupo -> grupo.forEach(notificacao -> registrarFalha(notificacao, e.getMessage())));
+        }
+
+        return enviadas;
+    }
+
+    private void registrarFalha(NotificacaoOutbox notificacao, String erro) {
+        if (notificacao.registrarFalha(erro, maxTentativas)) {
+            LOG.errorf("Notificação %d do outbox (avaliação %d, %s) esgotou %d tentativas e não será reenviada: %s",
+                notificacao.getId(), notificacao.getAvaliacaoId(), notificacao.getRestaurante(),
+                notificacao.getTentativas(), notificacao.getUltimoErro());
+        }
+    }
+
+    /**
+     * Agrupa as pendentes por restaurante, na ordem de gravação, até o limite de entradas do
+     * SendMessageBatch; as linhas dos demais restaurantes só são liberadas no commit.
+     * Sem janela de agrupamento cada notificação é uma entrada.
+     */
+    private List<List<NotificacaoOutbox>> agruparPorRestaurante(List<NotificacaoOutbox> pendentes) {
+        Map<String, List<NotificacaoOutbox>> grupos = new LinkedHashMap<>();
+        for (NotificacaoOutbox notificacao : pendentes) {
+            String chave = coalescedor.isAtivo() ? notificacao.getRestaurante() : String.valueOf(notificacao.getId());
+            List<NotificacaoOutbox> grupo = grupos.get(chave);
+            if (grupo == null) {
+                if (grupos.size() == TAMANHO_LOTE_SQS) {
+                    continue;
+                }
+                grupo = new ArrayList<>();
+                grupos.put(chave, grupo);
+            }
+            grupo.add(notificacao);
+        }
+        return new ArrayList<>(grupos.values());
+    }
+
+    private String corpo(List<NotificacaoOutbox> grupo) {
+        if (grupo.size() == 1) {
+            return grupo.get(0).getPayload();
+        }
+        List<NotificacaoUrgenciaDTO> alertas = new ArrayList<>(grupo.size());
+        for (NotificacaoOutbox notificacao : grupo) {
+            alertas.add(gson.fromJson(notificacao.getPayload(), NotificacaoUrgenciaDTO.class));
+        }
+        return gson.toJson(coalescedor.resumir(alertas));
+    }
+
+    /**
+     * Após o commit de uma nova notificação agenda o envio: espera o linger para juntar
+     * outras notificações no mesmo SendMessageBatch, ou envia na hora ao completar um lote
+     */
+    void aoRegistrar(@Observes(during = TransactionPhase.AFTER_SUCCESS) NotificacaoOutbox notificacao) {
+        if (registradasDesdeEnvio.incrementAndGet() >= TAMANHO_LOTE_SQS) {
+            Thread agendado = envioAgendado.get();
+            if (agendado != null) {
+                LockSupport.unpark(agendado);
+                return;
+            }
+        }
+        if (envioAgendado.get() == null) {
+            Thread.ofVirtual().name("outbox-linger").start(this::aguardarLingerEPublicar);
+        }
+    }
+
+    /**
+     * Aguarda o envio agendado pelo linger, se houver (antes de um checkpoint)
+     */
+    public void aguardarEnvioAgendado() throws InterruptedException {
+        Thread agendado = envioAgendado.get();
+        if (agendado != null) {
+            agendado.join();
+        }
+    }
+
+    private void aguardarLingerEPublicar() {
+        if (!envioAgendado.compareAndSet(null, Thread.currentThread())) {
+            return;
+        }
+        try {
+            if (registradasDesdeEnvio.get() < TAMANHO_LOTE_SQS) {
+                LockSupport.parkNanos(linger.toNanos());
+            }
+        } finally {
+            registradasDesdeEnvio.set(0);
+            envioAgendado.set(null);
+        }
+        publicarPendentes();
+    }
+}
@@ -2,15 +2,16 @@ package lambda.fase4.domain.service;
 
 import com.google.gson.Gson;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
 import lambda.fase4.domain.model.Avaliacao;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
+import lambda.fase4.domain.model.NotificacaoOutbox;
+import lambda.fase4.domain.repository.NotificacaoOutboxRepository;
 import org.jboss.logging.Logger;
-import software.amazon.awssdk.services.sns.SnsClient;
-import software.amazon.awssdk.services.sns.model.PublishRequest;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.util.concurrent.ExecutionException;
 
 @ApplicationScoped
 public class NotificacaoService {
@@ -18,64 +19,57 @@ public class NotificacaoService {
     private static final Logger LOG = Logger.getLogger(NotificacaoService.class);
 
     @Inject
-    SqsClient sqsClient;
+    NotificacaoOutboxRepository outboxRepository;
 
     @Inject
-    SnsClient snsClient;
+    PublicadorAlertasSNS publicadorAlertas;
 
     @Inject
     Gson gson;
 
-    @ConfigProperty(name = "quarkus.sqs.queue.notificacao.url")
-    String sqsQueueUrl;
-
-    @ConfigProperty(name = "quarkus.sns.topic.urgencia.arn")
-    String snsTopicArn;
-
-    public void enviarNotificacaoUrgencia(Avaliacao avaliacao) {
-        try {
-            NotificacaoUrgenciaDTO dto = new NotificacaoUrgenciaDTO(
-                avaliacao.getId(),
-                avaliacao.getRestaurante(),
-                avaliacao.getNota(),
-                avaliacao.getComentario(),
-                avaliacao.getDataAvaliacao()
-            );
-
-            String mensagemJson = gson.toJson(dto);
-
-            // Enviar para SQS
-            SendMessageRequest sqsRequest = SendMessageRequest.builder()
-                .queueUrl(sqsQueueUrl)
-                .messageBody(mensagemJson)
-                .build();
-
-            sqsClient.sendMessage(sqsRequest);
-            LOG.infof("Mensagem enviada para SQS: %s", mensagemJson);
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Erro ao enviar notificação de urgência");
-            throw new RuntimeException("Erro ao enviar notificação", e);
-        }
+    // Observado pelo relay após o commit, para enviar sem esperar o próximo ciclo agendado
+    @Inject
+    Event<NotificacaoOutbox> notificacaoRegistrada;
+
+    /**
+     * Grava a notificação no outbox dentro da transação da avaliação; a publicação
+     * no SQS é feita depois pelo NotificacaoOutboxRelay, que agrupa as notificações do mesmo
+     * restaurante dentro da janela de agrupamento em um único resumo.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void registrarNotificacaoUrgencia(Avaliacao avaliacao) {
+        NotificacaoUrgenciaDTO dto = new NotificacaoUrgenciaDTO(
+            avaliacao.getId(),
+            avaliacao.getRestaurante(),
+            avaliacao.getNota(),
+            avaliacao.getComentario(),
+            avaliacao.getDataAvaliacao()
+        );
+
+        NotificacaoOutbox notificacao = new NotificacaoOutbox(
+            avaliacao.getId(),
+            avaliacao.getRestaurante(),
+            gson.toJson(dto)
+        );
+        outboxRepository.persist(notificacao);
+        notificacaoRegistrada.fire(notificacao);
+        LOG.debugf("Notificação de urgência registrada no outbox: avaliação %d", avaliacao.getId());
     }
 
+    /**
+     * Publica e aguarda a confirmação; chamadas concorrentes são agrupadas em PublishBatch
+     */
     public void publicarAlertaSNS(String titulo, String mensagem) {
         try {
-            String mensagemCompleta = String.format("=== %s ===\n\n%s", titulo, mensagem);
-
-            PublishRequest publishRequest = PublishRequest.builder()
-                .topicArn(snsTopicArn)
-                .subject(titulo)
-                .message(mensagemCompleta)
-                .build();
-
-            snsClient.publish(publishRequest);
+            publicadorAlertas.publicar(titulo, mensagem).get();
             LOG.infof("Alerta publicado no SNS: %s", titulo);
 
-        } catch (Exception e) {
-            LOG.errorf(e, "Erro ao publicar no SNS");
-            throw new RuntimeException("Erro ao publicar no SNS", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Publicação no SNS interrompida", e);
+        } catch (ExecutionException e) {
+            LOG.errorf(e.getCause(), "Erro ao publicar no SNS");
+            throw new RuntimeException("Erro ao publicar no SNS", e.getCause());
         }
     }
 }
-
@@ -0,0 +1,173 @@
+package lambda.fase4.domain.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lambda.fase4.domain.model.Avaliacao;
+import lambda.fase4.domain.model.ContagemRestaurante;
+import lambda.fase4.domain.model.ProjecaoWatermark;
+import lambda.fase4.domain.model.ResumoRestaurante;
+import lambda.fase4.domain.repository.AvaliacaoRepository;
+import lambda.fase4.domain.repository.ProjecaoWatermarkRepository;
+import lambda.fase4.domain.repository.ResumoRestauranteRepository;
+import lambda.fase4.infraestructure.BancoDesativado;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Projeção assíncrona das avaliações no read model restaurante_resumo (CQRS): fora da
+ * transação de gravação, aplica as novas avaliações em lotes, na ordem (dataAvaliacao, id),
+ * a partir do watermark gravado em projecao_watermark.
+ * O id sozinho não serve de watermark: a sequence entrega blocos de ids a cada container,
+ * então um id menor pode ser confirmado depois de um maior. Apenas avaliações com mais de
+ * avaliacao.projecao.atraso são lidas, tempo em que toda transação de gravação já terminou:
+ * o atraso efetivo nunca é menor que o timeout de transação mais uma margem.
+ * Cada lote agrega por restaurante, faz um upsert por grupo e avança o watermark na mesma
+ * transação: um lote é aplicado inteiro ou não é aplicado.
+ */
+@ApplicationScoped
+public class ProjecaoResumoRestaurante {
+
+    private static final Logger LOG = Logger.getLogger(ProjecaoResumoRestaurante.class);
+    static final String PROJECAO = "restaurante_resumo";
+    private static final Duration MARGEM_ATRASO = Duration.ofSeconds(30);
+
+    @Inject
+    AvaliacaoRepository avaliacaoRepository;
+
+    @Inject
+    ResumoRestauranteRepository resumoRestauranteRepository;
+
+    @Inject
+    ProjecaoWatermarkRepository watermarkRepository;
+
+    @ConfigProperty(name = "avaliacao.projecao.tamanho-lote", defaultValue = "1000")
+    int tamanhoLote;
+
+    @ConfigProperty(name = "avaliacao.projecao.lotes-por-execucao", defaultValue = "50")
+    int lotesPorExecucao;
+
+    @ConfigProperty(name = "avaliacao.projecao.atraso", defaultValue = "90s")
+    Duration atrasoConfigurado;
+
+    // Limite de duração de toda transação de gravação: o Narayana aborta as que passam dele
+    @ConfigProperty(name = "quarkus.transaction-manager.default-transaction-timeout", defaultValue = "60s")
+    Duration timeoutTransacao;
+
+    private Duration atraso;
+
+    /**
+     * dataAvaliacao é atribuída quando a avaliação é criada, dentro da transação de gravação,
+     * e o commit acontece no máximo timeoutTransacao depois. Um atraso menor que o timeout (mais
+     * a margem para diferença de relógio entre containers) deixaria o watermark passar de uma
+     * avaliação ainda não confirmada, que nunca seria aplicada.
+     */
+    @PostConstruct
+    void iniciar() {
+        Duration minimo = timeoutTransacao.plus(MARGEM_ATRASO);
+        atraso = atrasoConfigurado;
+        if (atraso.compareTo(minimo) < 0) {
+            LOG.warnf("avaliacao.projecao.atraso (%s) menor que o timeout de transação (%s) mais %s: usando %s",
+                atrasoConfigurado, timeoutTransacao, MARGEM_ATRASO, minimo);
+            atraso = minimo;
+        }
+    }
+
+    @Scheduled(every = "${avaliacao.projecao.intervalo:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+        skipExecutionIf = BancoDesativado.class)
+    void agendarAtualizacao() {
+        atualizar();
+    }
+
+    /**
+     * Aplica lotes até alcançar o limite de atraso ou o limite de lotes por execução
+     */
+    public int atualizar() {
+        int total = 0;
+        for (int i = 0; i < lotesPorExecucao; i++) {
+            int aplicadas = aplicarLote();
+            total += aplicadas;
+            if (aplicadas < tamanhoLote) {
+                break;
+            }
+        }
+        if (total > 0) {
+            LOG.infof("Projeção %s: %d avaliações aplicadas", PROJECAO, total);
+        }
+        return total;
+    }
+
+    /**
+     * Cada lote roda na sua própria transação, com o watermark bloqueado (SKIP LOCKED):
+     * se outra instância está aplicando um lote, esta desiste da rodada
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int aplicarLote() {
+        Optional<ProjecaoWatermark> bloqueado = watermarkRepository.bloquear(PROJECAO);
+        if (bloqueado.isEmpty()) {
+            // Sem a linha do watermark (schema gerado pelo Hibernate, sem a migration): começa do início
+            watermarkRepository.criarSeAusente(PROJECAO);
+            return 0;
+        }
+
+        ProjecaoWatermark watermark = bloqueado.get();
+        List<Avaliacao> lote = avaliacaoRepository.listarAposWatermark(watermark.getUltimaData(),
+            watermark.getUltimoId(), LocalDateTime.now().minus(atraso), tamanhoLote);
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, long[]> contagens = new HashMap<>();
+        Map<String, LocalDateTime> ultimas = new HashMap<>();
+        for (Avaliacao avaliacao : lote) {
+            contagens.computeIfAbsent(avaliacao.getRestaurante(), k -> new long[6])[avaliacao.getNota()]++;
+            // Lote ordenado por data: a última vista é a mais recente
+            ultimas.put(avaliacao.getRestaurante(), avaliacao.getDataAvaliacao());
+        }
+        contagens.forEach((restaurante, contagem) ->
+            resumoRestauranteRepository.incrementar(restaurante, contagem, ultimas.get(restaurante)));
+
+        watermark.avancar(lote.get(lote.size() - 1));
+        return lote.size();
+    }
+
+    /**
+     * Resumo de todos os restaurantes: o read model mais as avaliações posteriores ao watermark,
+     * lidos sob o mesmo watermark (sem contar uma avaliação duas vezes nem deixá-la de fora)
+     */
+    @Transactional
+    public List<ContagemRestaurante> lerResumos() {
+        Optional<ProjecaoWatermark> watermark = watermarkRepository.compartilhar(PROJECAO);
+        List<ContagemRestaurante> resumos = new ArrayList<>();
+        if (watermark.isEmpty()) {
+            // Projeção ainda não iniciada: nada aplicado, tudo vem das avaliações
+            resumos.addAll(avaliacaoRepository.contarPorRestauranteApos(ProjecaoWatermark.INICIO, 0L));
+            return resumos;
+        }
+
+        resumoRestauranteRepository.listAll().forEach(resumo -> resumos.add(resumo.paraContagem()));
+        resumos.addAll(avaliacaoRepository.contarPorRestauranteApos(
+            watermark.get().getUltimaData(), watermark.get().getUltimoId()));
+        return resumos;
+    }
+
+    /**
+     * Maiores médias lidas diretamente do read model (pode estar atrasado em até atraso + intervalo)
+     */
+    @Transactional
+    public List<ContagemRestaurante> ranking(long minimoAvaliacoes, int limite) {
+        return resumoRestauranteRepository.listarRanking(minimoAvaliacoes, limite).stream()
+            .map(ResumoRestaurante::paraContagem)
+            .toList();
+    }
+}
@@ -0,0 +1,225 @@
+package lambda.fase4.domain.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publica alertas no tópico de urgência agrupando chamadas concorrentes em PublishBatch
+ * (até 10 entradas). O lote é enviado ao completar 10 alertas ou após o linger.
+ * Entradas que falham por erro do serviço são reenviadas; erros do remetente falham o alerta.
+ */
+@ApplicationScoped
+public class PublicadorAlertasSNS {
+
+    private static final Logger LOG = Logger.getLogger(PublicadorAlertasSNS.class);
+    static final int TAMANHO_LOTE_SNS = 10;
+    private static final int TAMANHO_MAXIMO_ASSUNTO = 99;
+
+    // Criado no primeiro envio: funções que nunca publicam alertas não pagam pelo client
+    @Inject
+    Instance<SnsClient> snsClient;
+
+    @Inject
+    RelatorioInicializacao inicializacao;
+
+    @ConfigProperty(name = "aws.sns.topic.urgencia.arn")
+    String snsTopicArn;
+
+    @ConfigProperty(name = "alertas.sns.linger", defaultValue = "10ms")
+    Duration linger;
+
+    @ConfigProperty(name = "alertas.sns.max-tentativas", defaultValue = "3")
+    int maxTentativas;
+
+    private final List<AlertaPendente> buffer = new ArrayList<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLong chamadas = new AtomicLong();
+    private volatile Thread lingerAgendado;
+    private final AtomicLong publicados = new AtomicLong();
+
+    /**
+     * Enfileira o alerta para o próximo lote. O futuro completa quando o SNS confirma a
+     * publicação, ou excepcionalmente quando as tentativas se esgotam.
+     */
+    public CompletableFuture<Void> publicar(String titulo, String mensagem) {
+        AlertaPendente alerta = new AlertaPendente(
+            Long.toString(sequencia.incrementAndGet()), titulo, mensagem);
+
+        List<AlertaPendente> lote = null;
+        boolean agendarLinger = false;
+        synchronized (buffer) {
+            buffer.add(alerta);
+            if (buffer.size() >= TAMANHO_LOTE_SNS) {
+                lote = retirarLote();
+            } else if (buffer.size() == 1) {
+                agendarLinger = true;
+            }
+        }
+
+        if (lote != null) {
+            enviar(lote);
+        } else if (agendarLinger) {
+            lingerAgendado = Thread.ofVirtual().name("sns-linger").start(this::aguardarLingerEDescarregar);
+        }
+        return alerta.resultado;
+    }
+
+    /**
+     * Envia imediatamente o que estiver no buffer
+     */
+    public void descarregar() {
+        List<AlertaPendente> lote;
+        synchronized (buffer) {
+            lote = retirarLote();
+        }
+        while (!lote.isEmpty()) {
+            enviar(lote);
+            synchronized (buffer) {
+                lote = retirarLote();
+            }
+        }
+    }
+
+    /**
+     * Aguarda o linger em andamento e descarrega o buffer: antes de um checkpoint nenhum
+     * alerta pode ficar no buffer nem em uma thread à espera
+     */
+    public void drenar() throws InterruptedException {
+        Thread agendado = lingerAgendado;
+        if (agendado != null) {
+            agendado.join();
+        }
+        descarregar();
+    }
+
+    public String getEstatisticas() {
+        return String.format("SNS: %d alertas publicados em %d chamadas PublishBatch",
+            publicados.get(), chamadas.get());
+    }
+
+    private void aguardarLingerEDescarregar() {
+        try {
+            Thread.sleep(linger.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        descarregar();
+    }
+
+    // Chamado com o lock do buffer
+    private List<AlertaPendente> retirarLote() {
+        int quantidade = Math.min(buffer.size(), TAMANHO_LOTE_SNS);
+        List<AlertaPendente> lote = new ArrayList<>(buffer.subList(0, quantidade));
+        buffer.subList(0, quantidade).clear();
+        return lote;
+    }
+
+    private void enviar(List<AlertaPendente> lote) {
+        List<AlertaPendente> restantes = lote;
+
+        for (int tentativa = 1; !restantes.isEmpty(); tentativa++) {
+            Map<String, AlertaPendente> porId = new HashMap<>();
+            List<PublishBatchRequestEntry> entries = new ArrayList<>(restantes.size());
+            for (AlertaPendente alerta : restantes) {
+                porId.put(alerta.id, alerta);
+                entries.add(PublishBatchRequestEntry.builder()
+                    .id(alerta.id)
+                    .subject(assunto(alerta.titulo))
+                    .message(String.format("=== %s ===\n\n%s", alerta.titulo, alerta.mensagem))
+                    .build());
+            }
+
+            List<AlertaPendente> reenviar = new ArrayList<>();
+            try {
+                chamadas.incrementAndGet();
+                PublishBatchResponse response = inicializacao.obter("SnsClient", snsClient).publishBatch(PublishBatchRequest.builder()
+                    .topicArn(snsTopicArn)
+                    .publishBatchRequestEntries(entries)
+                    .build());
+
+                for (PublishBatchResultEntry sucesso : response.successful()) {
+                    publicados.incrementAndGet();
+                    porId.get(sucesso.id()).resultado.complete(null);
+                }
+                for (BatchResultErrorEntry falha : response.failed()) {
+                    AlertaPendente alerta = porId.get(falha.id());
+                    String erro = falha.code() + ": " + falha.message();
+                    if (Boolean.TRUE.equals(falha.senderFault()) || tentativa >= maxTentativas) {
+                        LOG.warnf("Falha ao publicar alerta '%s' no SNS: %s", alerta.titulo, erro);
+                        alerta.resultado.completeExceptionally(new IllegalStateException(erro));
+                    } else {
+                        reenviar.add(alerta);
+                    }
+                }
+
+            } catch (Exception e) {
+                if (tentativa >= maxTentativas) {
+                    LOG.errorf(e, "Erro ao publicar lote de %d alertas no SNS", restantes.size());
+                    restantes.forEach(alerta -> alerta.resultado.completeExceptionally(e));
+                    return;
+                }
+                reenviar = restantes;
+            }
+
+            restantes = reenviar;
+            if (!restantes.isEmpty() && !aguardarReenvio(tentativa)) {
+                restantes.forEach(alerta -> alerta.resultado.completeExceptionally(
+                    new IllegalStateException("Publicação no SNS interrompida")));
+                return;
+            }
+        }
+    }
+
+    private boolean aguardarReenvio(int tentativa) {
+        try {
+            Thread.sleep(100L * tentativa);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // O Subject do SNS aceita apenas ASCII imprimível e menos de 100 caracteres
+    static String assunto(String titulo) {
+        String ascii = Normalizer.normalize(titulo, Normalizer.Form.NFD)
+            .replaceAll("[^\\x20-\\x7E]", "")
+            .trim();
+        if (ascii.isEmpty()) {
+            return null;
+        }
+        return ascii.length() > TAMANHO_MAXIMO_ASSUNTO ? ascii.substring(0, TAMANHO_MAXIMO_ASSUNTO) : ascii;
+    }
+
+    private static final class AlertaPendente {
+        private final String id;
+        private final String titulo;
+        private final String mensagem;
+        private final CompletableFuture<Void> resultado = new CompletableFuture<>();
+
+        private AlertaPendente(String id, String titulo, String mensagem) {
+            this.id = id;
+            this.titulo = titulo;
+            this.mensagem = mensagem;
+        }
+    }
+}
@@ -3,11 +3,11 @@ package lambda.fase4.domain.service;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lambda.fase4.application.dto.RelatorioSemanalDTO;
-import lambda.fase4.domain.model.Avaliacao;
 import lambda.fase4.domain.repository.AvaliacaoRepository;
+import lambda.fase4.domain.repository.ResumoDiarioRepository;
 import org.jboss.logging.Logger;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
@@ -22,38 +22,43 @@ public class RelatorioService {
     @Inject
     AvaliacaoRepository avaliacaoRepository;
 
+    @Inject
+    ResumoDiarioRepository resumoDiarioRepository;
+
     public RelatorioSemanalDTO gerarRelatorioSemanal() {
-        LocalDateTime fim = LocalDateTime.now();
-        LocalDateTime inicio = fim.minusDays(7);
+        // Sete dias completos contando hoje (gerarRelatorio inclui o dia inicial e o final)
+        LocalDate fim = LocalDate.now();
+        return gerarRelatorio(fim.minusDays(6), fim);
+    }
 
-        LOG.infof("Gerando relatório semanal de %s até %s", inicio, fim);
+    /**
+     * Relatório de um período arbitrário em dias completos, lido do rollup diário
+     * (dias x restaurantes linhas, independente do volume de avaliações)
+     */
+    public RelatorioSemanalDTO gerarRelatorio(LocalDate inicio, LocalDate fim) {
+        if (inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("Data inicial deve ser anterior à data final");
+        }
+
+        LOG.infof("Gerando relatório de %s até %s", inicio, fim);
 
-        List<Avaliacao> avaliacoes = avaliacaoRepository.findByPeriodo(inicio, fim);
+        AcumuladorEstatisticas acumulador = new AcumuladorEstatisticas();
+        resumoDiarioRepository.listarPorPeriodo(inicio, fim).forEach(acumulador::adicionar);
 
-        if (avaliacoes.isEmpty()) {
+        if (acumulador.getTotal() == 0) {
             LOG.info("Nenhuma avaliação encontrada no período");
             return criarRelatorioVazio(inicio, fim);
         }
 
-        // Total de avaliações
-        int totalAvaliacoes = avaliacoes.size();
-
-        // Média de notas
-        double mediaNotas = avaliacoes.stream()
-            .mapToInt(Avaliacao::getNota)
-            .average()
-            .orElse(0.0);
-
-        // Avaliações por restaurante
-        Map<String, Integer> avaliacoesPorRestaurante = avaliacoes.stream()
-            .collect(Collectors.groupingBy(
-                Avaliacao::getRestaurante,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
-
-        // Comentários negativos (nota <= 2)
-        List<String> comentariosNegativos = avaliacoes.stream()
-            .filter(a -> a.getNota() <= 2 && a.getComentario() != null)
+        long totalAvaliacoes = acumulador.getTotal();
+        double mediaNotas = acumulador.getMedia();
+        Map<String, Integer> avaliacoesPorRestaurante = new HashMap<>();
+        acumulador.forEachRestaurante((restaurante, total) -> avaliacoesPorRestaurante.put(restaurante, (int) total));
+
+        // Comentários negativos (nota <= 2): apenas essas linhas são carregadas
+        List<String> comentariosNegativos = avaliacaoRepository.findNegativasByPeriodo(
+                inicio.atStartOfDay(), fim.plusDays(1).atStartOfDay()).stream()
+            .filter(a -> a.getComentario() != null)
             .map(a -> String.format("[%s - Nota %d] %s",
                 a.getRestaurante(), a.getNota(), a.getComentario()))
             .collect(Collectors.toList());
@@ -64,14 +69,14 @@ public class RelatorioService {
 
         return new RelatorioSemanalDTO(
             periodo,
-            totalAvaliacoes,
+            (int) totalAvaliacoes,
             Math.round(mediaNotas * 100.0) / 100.0,
             avaliacoesPorRestaurante,
             comentariosNegativos
         );
     }
 
-    private RelatorioSemanalDTO criarRelatorioVazio(LocalDateTime inicio, LocalDateTime fim) {
+    private RelatorioSemanalDTO criarRelatorioVazio(LocalDate inicio, LocalDate fim) {
         return new RelatorioSemanalDTO(
             formatarPeriodo(inicio, fim),
             0,
@@ -81,7 +86,7 @@ public class RelatorioService {
         );
     }
 
-    private String formatarPeriodo(LocalDateTime inicio, LocalDateTime fim) {
+    private String formatarPeriodo(LocalDate inicio, LocalDate fim) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         return String.format("%s a %s",
             inicio.format(formatter),
@@ -0,0 +1,66 @@
+package lambda.fase4.domain.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import lambda.fase4.domain.model.Avaliacao;
+import lambda.fase4.domain.model.ResumoDiarioId;
+import lambda.fase4.domain.repository.ResumoDiarioRepository;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantém o rollup diário por restaurante usado pelos relatórios,
+ * tornando o custo do relatório independente do volume de avaliações
+ */
+@ApplicationScoped
+public class ResumoDiarioService {
+
+    private static final Logger LOG = Logger.getLogger(ResumoDiarioService.class);
+    private static final Comparator<ResumoDiarioId> ORDEM_UPSERT =
+        Comparator.comparing(ResumoDiarioId::getDia).thenComparing(ResumoDiarioId::getRestaurante);
+
+    @Inject
+    ResumoDiarioRepository resumoDiarioRepository;
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void registrar(Avaliacao avaliacao) {
+        long[] contagem = new long[6];
+        contagem[avaliacao.getNota()] = 1;
+        resumoDiarioRepository.incrementar(
+            avaliacao.getDataAvaliacao().toLocalDate(), avaliacao.getRestaurante(), contagem);
+    }
+
+    /**
+     * Agrupa o lote por dia/restaurante em memória: um único upsert por grupo. Os upserts seguem
+     * a ordem (dia, restaurante), para que lotes concorrentes bloqueiem as linhas na mesma ordem
+     * e não entrem em deadlock.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void registrar(List<Avaliacao> avaliacoes) {
+        Map<ResumoDiarioId, long[]> grupos = new TreeMap<>(ORDEM_UPSERT);
+        for (Avaliacao avaliacao : avaliacoes) {
+            ResumoDiarioId chave = new ResumoDiarioId(
+                avaliacao.getDataAvaliacao().toLocalDate(), avaliacao.getRestaurante());
+            grupos.computeIfAbsent(chave, k -> new long[6])[avaliacao.getNota()]++;
+        }
+        grupos.forEach((chave, contagem) ->
+            resumoDiarioRepository.incrementar(chave.getDia(), chave.getRestaurante(), contagem));
+    }
+
+    /**
+     * Recalcula o rollup do período a partir da tabela de avaliações.
+     * Indicado para dias já encerrados (backfill ou correção).
+     */
+    @Transactional
+    public int reconstruir(LocalDate inicio, LocalDate fim) {
+        int linhas = resumoDiarioRepository.reconstruir(inicio, fim);
+        LOG.infof("Rollup diário reconstruído de %s a %s: %d linhas", inicio, fim, linhas);
+        return linhas;
+    }
+}
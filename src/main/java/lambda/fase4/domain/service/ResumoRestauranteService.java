@@ -0,0 +1,171 @@
+package lambda.fase4.domain.service;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import lambda.fase4.application.dto.AvaliacaoResponse;
+import lambda.fase4.application.dto.ResumoRestauranteResponse;
+import lambda.fase4.domain.model.ContagemRestaurante;
+import lambda.fase4.infraestructure.BancoDesativado;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resumo por restaurante (total, média, histograma e última avaliação) servido de contadores
+ * em memória, sem ler as avaliações. Os contadores são carregados do read model restaurante_resumo
+ * (mais as avaliações que a projeção ainda não aplicou) na primeira leitura e atualizados após o
+ * commit de cada avaliação gravada pelo AvaliacaoService.
+ * A recarga periódica corrige o que foi gravado por outras instâncias e eventuais incrementos
+ * perdidos durante uma carga.
+ */
+@ApplicationScoped
+public class ResumoRestauranteService {
+
+    private static final Logger LOG = Logger.getLogger(ResumoRestauranteService.class);
+
+    @Inject
+    ProjecaoResumoRestaurante projecao;
+
+    @ConfigProperty(name = "avaliacao.ranking.limite-maximo", defaultValue = "100")
+    int limiteMaximoRanking;
+
+    // null até a primeira leitura: funções que nunca consultam o resumo não fazem a carga
+    private volatile ConcurrentHashMap<String, Contadores> contadores;
+
+    public ResumoRestauranteResponse buscar(String restaurante) {
+        Contadores contador = contadoresCarregados().get(restaurante);
+        if (contador == null) {
+            throw new IllegalArgumentException("Nenhuma avaliação para o restaurante: " + restaurante);
+        }
+        return contador.resumo(restaurante);
+    }
+
+    /**
+     * Maiores médias, lidas do read model (não dos contadores desta instância)
+     */
+    public List<ResumoRestauranteResponse> ranking(long minimoAvaliacoes, int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser positivo");
+        }
+        return projecao.ranking(minimoAvaliacoes, Math.min(limite, limiteMaximoRanking)).stream()
+            .map(contagem -> new Contadores(contagem).resumo(contagem.getRestaurante()))
+            .toList();
+    }
+
+    // Antes da carga a avaliação é ignorada: a consulta agregada já vai incluí-la
+    void aoSalvar(@Observes(during = TransactionPhase.AFTER_SUCCESS) AvaliacaoResponse salva) {
+        ConcurrentHashMap<String, Contadores> atual = contadores;
+        if (atual != null) {
+            atual.computeIfAbsent(salva.getRestaurante(), chave -> new Contadores())
+                .registrar(salva.getNota(), salva.getDataAvaliacao());
+        }
+    }
+
+    @Scheduled(every = "${avaliacao.resumo.recarga:10m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP,
+        skipExecutionIf = BancoDesativado.class)
+    void recarregar() {
+        if (contadores != null) {
+            contadores = carregar();
+        }
+    }
+
+    private Map<String, Contadores> contadoresCarregados() {
+        ConcurrentHashMap<String, Contadores> atual = contadores;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (this) {
+            if (contadores == null) {
+                contadores = carregar();
+            }
+            return contadores;
+        }
+    }
+
+    private ConcurrentHashMap<String, Contadores> carregar() {
+        long inicio = System.nanoTime();
+        ConcurrentHashMap<String, Contadores> carregados = new ConcurrentHashMap<>();
+        // Um restaurante pode vir do read model e das avaliações ainda não projetadas: soma as duas
+        for (ContagemRestaurante contagem : projecao.lerResumos()) {
+            carregados.computeIfAbsent(contagem.getRestaurante(), chave -> new Contadores()).adicionar(contagem);
+        }
+        LOG.infof("Resumo por restaurante carregado: %d restaurantes em %d ms",
+            carregados.size(), (System.nanoTime() - inicio) / 1_000_000);
+        return carregados;
+    }
+
+    // LongAdder por contador: escritas concorrentes no mesmo restaurante não disputam o mesmo campo
+    private static final class Contadores {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder somaNotas = new LongAdder();
+        private final LongAdder[] porNota = new LongAdder[6];
+        private final LongAccumulator ultimaAvaliacao = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        private Contadores() {
+            for (int nota = 1; nota <= 5; nota++) {
+                porNota[nota] = new LongAdder();
+            }
+        }
+
+        private Contadores(ContagemRestaurante contagem) {
+            this();
+            adicionar(contagem);
+        }
+
+        private void adicionar(ContagemRestaurante contagem) {
+            total.add(contagem.getTotal());
+            somaNotas.add(contagem.getSomaNotas());
+            for (int nota = 1; nota <= 5; nota++) {
+                porNota[nota].add(contagem.getContagemNota(nota));
+            }
+            if (contagem.getUltimaAvaliacao() != null) {
+                ultimaAvaliacao.accumulate(paraMillis(contagem.getUltimaAvaliacao()));
+            }
+        }
+
+        private void registrar(int nota, LocalDateTime data) {
+            total.increment();
+            somaNotas.add(nota);
+            porNota[nota].increment();
+            if (data != null) {
+                ultimaAvaliacao.accumulate(paraMillis(data));
+            }
+        }
+
+        // Leitura sem lock: sob escrita concorrente os campos podem diferir em uma avaliação
+        private ResumoRestauranteResponse resumo(String restaurante) {
+            long quantidade = total.sum();
+            double media = quantidade == 0 ? 0.0 : (double) somaNotas.sum() / quantidade;
+
+            Map<Integer, Long> histograma = new LinkedHashMap<>();
+            for (int nota = 1; nota <= 5; nota++) {
+                histograma.put(nota, porNota[nota].sum());
+            }
+
+            long ultima = ultimaAvaliacao.get();
+            return new ResumoRestauranteResponse(restaurante, quantidade, Math.round(media * 100.0) / 100.0,
+                histograma, ultima == Long.MIN_VALUE ? null : deMillis(ultima));
+        }
+
+        // LocalDateTime sem fuso: UTC serve apenas como codificação reversível em long
+        private static long paraMillis(LocalDateTime data) {
+            return data.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+
+        private static LocalDateTime deMillis(long millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+        }
+    }
+}
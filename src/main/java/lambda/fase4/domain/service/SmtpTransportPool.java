@@ -0,0 +1,153 @@
+package lambda.fase4.domain.service;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de conexões SMTP já autenticadas (STARTTLS + AUTH feitos uma única vez por conexão),
+ * reutilizadas entre mensagens e entre invocações da Lambda.
+ * A remoção de conexões ociosas é feita de forma preguiçosa, sem threads em segundo plano.
+ */
+public class SmtpTransportPool implements AutoCloseable {
+
+    private static final long ESPERA_CONEXAO_SEGUNDOS = 30;
+
+    private final Session session;
+    private final Semaphore permissoes;
+    private final long ociosidadeMaximaMillis;
+    private final long validarAposMillis;
+    private final Deque<ConexaoOciosa> ociosas = new ArrayDeque<>();
+
+    /**
+     * @param maxConexoes           conexões simultâneas (em uso + ociosas)
+     * @param ociosidadeMaximaMillis conexões ociosas há mais tempo são fechadas
+     * @param validarAposMillis      conexões ociosas há mais tempo recebem um NOOP antes do uso
+     */
+    public SmtpTransportPool(Session session, int maxConexoes, long ociosidadeMaximaMillis, long validarAposMillis) {
+        this.session = session;
+        this.permissoes = new Semaphore(maxConexoes, true);
+        this.ociosidadeMaximaMillis = ociosidadeMaximaMillis;
+        this.validarAposMillis = validarAposMillis;
+    }
+
+    /**
+     * Obtém uma conexão conectada: reutiliza a ociosa mais recente ou abre uma nova.
+     * Toda conexão obtida deve voltar por devolver() ou descartar().
+     */
+    public Transport obter() throws MessagingException {
+        try {
+            if (!permissoes.tryAcquire(ESPERA_CONEXAO_SEGUNDOS, TimeUnit.SECONDS)) {
+                throw new MessagingException("Tempo esgotado aguardando conexão SMTP livre");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrompido aguardando conexão SMTP", e);
+        }
+
+        try {
+            Transport transport = proximaOciosaValida();
+            return transport != null ? transport : conectar();
+        } catch (MessagingException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    public void devolver(Transport transport) {
+        synchronized (ociosas) {
+            ociosas.addFirst(new ConexaoOciosa(transport, System.currentTimeMillis()));
+        }
+        permissoes.release();
+        removerOciosas();
+    }
+
+    // Conexão com falha de rede/protocolo: fecha em vez de devolver ao pool
+    public void descartar(Transport transport) {
+        fecharSilenciosamente(transport);
+        permissoes.release();
+    }
+
+    /**
+     * Fecha as conexões ociosas além do tempo máximo (as mais antigas ficam no fim da fila)
+     */
+    public void removerOciosas() {
+        long limite = System.currentTimeMillis() - ociosidadeMaximaMillis;
+        synchronized (ociosas) {
+            Iterator<ConexaoOciosa> it = ociosas.descendingIterator();
+            while (it.hasNext()) {
+                ConexaoOciosa conexao = it.next();
+                if (conexao.desde >= limite) {
+                    break;
+                }
+                it.remove();
+                fecharSilenciosamente(conexao.transport);
+            }
+        }
+    }
+
+    public int getQuantidadeOciosas() {
+        synchronized (ociosas) {
+            return ociosas.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (ociosas) {
+            ociosas.forEach(conexao -> fecharSilenciosamente(conexao.transport));
+            ociosas.clear();
+        }
+    }
+
+    private Transport proximaOciosaValida() {
+        long agora = System.currentTimeMillis();
+        while (true) {
+            ConexaoOciosa conexao;
+            synchronized (ociosas) {
+                conexao = ociosas.pollFirst();
+            }
+            if (conexao == null) {
+                return null;
+            }
+
+            long ociosidade = agora - conexao.desde;
+            boolean expirada = ociosidade > ociosidadeMaximaMillis;
+            // isConnected() envia NOOP ao servidor: só vale a ida e volta se a conexão ficou parada
+            boolean valida = !expirada && (ociosidade < validarAposMillis || conexao.transport.isConnected());
+            if (valida) {
+                return conexao.transport;
+            }
+            fecharSilenciosamente(conexao.transport);
+        }
+    }
+
+    private Transport conectar() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        transport.connect();
+        return transport;
+    }
+
+    private static void fecharSilenciosamente(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException ignored) {
+            // conexão já perdida
+        }
+    }
+
+    private static final class ConexaoOciosa {
+        private final Transport transport;
+        private final long desde;
+
+        private ConexaoOciosa(Transport transport, long desde) {
+            this.transport = transport;
+            this.desde = desde;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package lambda.fase4.infraestructure;
+
+import io.quarkus.scheduler.Scheduled;
+import io.quarkus.scheduler.ScheduledExecution;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Pula as tarefas agendadas que usam o banco nas funções em que o Hibernate ORM está
+ * desativado (DB_ATIVO=false), como a de envio de notificações.
+ */
+@Singleton
+public class BancoDesativado implements Scheduled.SkipPredicate {
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.active", defaultValue = "true")
+    boolean bancoAtivo;
+
+    @Override
+    public boolean test(ScheduledExecution execution) {
+        return !bancoAtivo;
+    }
+}
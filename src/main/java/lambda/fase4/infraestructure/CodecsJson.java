@@ -0,0 +1,507 @@
+package lambda.fase4.infraestructure;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import lambda.fase4.application.dto.AvaliacaoRequest;
+import lambda.fase4.application.dto.AvaliacaoResponse;
+import lambda.fase4.application.dto.ErrorResponse;
+import lambda.fase4.application.dto.LoteAvaliacaoResponse;
+import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
+import lambda.fase4.application.dto.PaginaAvaliacoesResponse;
+import lambda.fase4.application.dto.RelatorioSemanalDTO;
+import lambda.fase4.application.dto.ResumoRestauranteResponse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Camada única de serialização JSON dos handlers, do outbox e da API REST (CodecsJsonProvider,
+ * inclusive o NDJSON). Todos os DTOs trafegados têm codecs escritos campo a campo sobre o stream
+ * do Gson: sem reflexão, sem árvore intermediária e sem pretty printing. Campos nulos são escritos
+ * como null. A instância é criada uma única vez por JVM (inicialização estática, compatível com
+ * build-time init no native).
+ */
+public final class CodecsJson {
+
+    private static final TypeAdapter<LocalDateTime> LOCAL_DATE_TIME = new LocalDateTimeAdapter().nullSafe();
+    private static final TypeAdapter<AvaliacaoRequest> AVALIACAO_REQUEST = new AvaliacaoRequestCodec().nullSafe();
+    private static final TypeAdapter<AvaliacaoResponse> AVALIACAO_RESPONSE = new AvaliacaoResponseCodec().nullSafe();
+    private static final TypeAdapter<NotificacaoUrgenciaDTO> NOTIFICACAO_URGENCIA = new NotificacaoUrgenciaCodec().nullSafe();
+    private static final TypeAdapter<RelatorioSemanalDTO> RELATORIO_SEMANAL = new RelatorioSemanalCodec().nullSafe();
+    private static final TypeAdapter<PaginaAvaliacoesResponse> PAGINA_AVALIACOES = new PaginaAvaliacoesCodec().nullSafe();
+    private static final TypeAdapter<LoteAvaliacaoResponse.ErroItem> ERRO_ITEM = new ErroItemCodec().nullSafe();
+    private static final TypeAdapter<LoteAvaliacaoResponse> LOTE_AVALIACAO = new LoteAvaliacaoCodec().nullSafe();
+    private static final TypeAdapter<ResumoRestauranteResponse> RESUMO_RESTAURANTE = new ResumoRestauranteCodec().nullSafe();
+    private static final TypeAdapter<ErrorResponse> ERRO = new ErrorResponseCodec().nullSafe();
+
+    // Tipos com codec: também aceitos como elemento de List ou array
+    private static final Set<Class<?>> TIPOS = Set.of(
+        AvaliacaoRequest.class, AvaliacaoResponse.class, NotificacaoUrgenciaDTO.class, RelatorioSemanalDTO.class,
+        PaginaAvaliacoesResponse.class, LoteAvaliacaoResponse.class, ResumoRestauranteResponse.class,
+        ErrorResponse.class);
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapter(LocalDateTime.class, LOCAL_DATE_TIME)
+        .registerTypeAdapter(AvaliacaoRequest.class, AVALIACAO_REQUEST)
+        .registerTypeAdapter(AvaliacaoResponse.class, AVALIACAO_RESPONSE)
+        .registerTypeAdapter(NotificacaoUrgenciaDTO.class, NOTIFICACAO_URGENCIA)
+        .registerTypeAdapter(RelatorioSemanalDTO.class, RELATORIO_SEMANAL)
+        .registerTypeAdapter(PaginaAvaliacoesResponse.class, PAGINA_AVALIACOES)
+        .registerTypeAdapter(LoteAvaliacaoResponse.class, LOTE_AVALIACAO)
+        .registerTypeAdapter(ResumoRestauranteResponse.class, RESUMO_RESTAURANTE)
+        .registerTypeAdapter(ErrorResponse.class, ERRO)
+        .serializeNulls()
+        .disableHtmlEscaping()
+        .create();
+
+    private CodecsJson() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Se o tipo tem codec (direto, como List do tipo ou como array): os demais cairiam na
+     * serialização reflexiva do Gson
+     */
+    public static boolean suporta(Type tipo) {
+        if (tipo instanceof Class<?> classe) {
+            return TIPOS.contains(classe) || (classe.isArray() && TIPOS.contains(classe.getComponentType()));
+        }
+        if (tipo instanceof ParameterizedType parametrizado
+                && parametrizado.getRawType() instanceof Class<?> bruto
+                && List.class.isAssignableFrom(bruto)) {
+            return parametrizado.getActualTypeArguments()[0] instanceof Class<?> elemento && TIPOS.contains(elemento);
+        }
+        return false;
+    }
+
+    /**
+     * Escreve uma avaliação direto no Writer, sem String intermediária (NDJSON)
+     */
+    public static void escrever(AvaliacaoResponse avaliacao, Writer writer) throws IOException {
+        AVALIACAO_RESPONSE.toJson(writer, avaliacao);
+    }
+
+    static final class AvaliacaoRequestCodec extends TypeAdapter<AvaliacaoRequest> {
+        @Override
+        public void write(JsonWriter out, AvaliacaoRequest value) throws IOException {
+            out.beginObject();
+            out.name("restaurante").value(value.getRestaurante());
+            out.name("nota").value(value.getNota());
+            out.name("comentario").value(value.getComentario());
+            out.name("emailCliente").value(value.getEmailCliente());
+            out.endObject();
+        }
+
+        @Override
+        public AvaliacaoRequest read(JsonReader in) throws IOException {
+            AvaliacaoRequest request = new AvaliacaoRequest();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "restaurante" -> request.setRestaurante(in.nextString());
+                    case "nota" -> request.setNota(in.nextInt());
+                    case "comentario" -> request.setComentario(in.nextString());
+                    case "emailCliente" -> request.setEmailCliente(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return request;
+        }
+    }
+
+    static final class AvaliacaoResponseCodec extends TypeAdapter<AvaliacaoResponse> {
+        @Override
+        public void write(JsonWriter out, AvaliacaoResponse value) throws IOException {
+            out.beginObject();
+            out.name("id").value(value.getId());
+            out.name("restaurante").value(value.getRestaurante());
+            out.name("nota").value(value.getNota());
+            out.name("comentario").value(value.getComentario());
+            out.name("dataAvaliacao");
+            LOCAL_DATE_TIME.write(out, value.getDataAvaliacao());
+            out.name("emailCliente").value(value.getEmailCliente());
+            out.endObject();
+        }
+
+        @Override
+        public AvaliacaoResponse read(JsonReader in) throws IOException {
+            AvaliacaoResponse response = new AvaliacaoResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "id" -> response.setId(in.nextLong());
+                    case "restaurante" -> response.setRestaurante(in.nextString());
+                    case "nota" -> response.setNota(in.nextInt());
+                    case "comentario" -> response.setComentario(in.nextString());
+                    case "dataAvaliacao" -> response.setDataAvaliacao(LOCAL_DATE_TIME.read(in));
+                    case "emailCliente" -> response.setEmailCliente(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+
+    static final class NotificacaoUrgenciaCodec extends TypeAdapter<NotificacaoUrgenciaDTO> {
+        @Override
+        public void write(JsonWriter out, NotificacaoUrgenciaDTO value) throws IOException {
+            out.beginObject();
+            out.name("avaliacaoId").value(value.getAvaliacaoId());
+            out.name("restaurante").value(value.getRestaurante());
+            out.name("nota").value(value.getNota());
+            out.name("comentario").value(value.getComentario());
+            out.name("dataAvaliacao");
+            LOCAL_DATE_TIME.write(out, value.getDataAvaliacao());
+            // Campos do resumo só aparecem em notificações agrupadas
+            if (value.isResumo()) {
+                out.name("quantidade").value(value.getQuantidade());
+                out.name("inicioPeriodo");
+                LOCAL_DATE_TIME.write(out, value.getInicioPeriodo());
+                out.name("fimPeriodo");
+                LOCAL_DATE_TIME.write(out, value.getFimPeriodo());
+                out.name("comentarios");
+                escreverLista(out, value.getComentarios());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public NotificacaoUrgenciaDTO read(JsonReader in) throws IOException {
+            NotificacaoUrgenciaDTO dto = new NotificacaoUrgenciaDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "avaliacaoId" -> dto.setAvaliacaoId(in.nextLong());
+                    case "restaurante" -> dto.setRestaurante(in.nextString());
+                    case "nota" -> dto.setNota(in.nextInt());
+                    case "comentario" -> dto.setComentario(in.nextString());
+                    case "dataAvaliacao" -> dto.setDataAvaliacao(LOCAL_DATE_TIME.read(in));
+                    case "quantidade" -> dto.setQuantidade(in.nextInt());
+                    case "inicioPeriodo" -> dto.setInicioPeriodo(LOCAL_DATE_TIME.read(in));
+                    case "fimPeriodo" -> dto.setFimPeriodo(LOCAL_DATE_TIME.read(in));
+                    case "comentarios" -> dto.setComentarios(lerLista(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+    }
+
+    static final class RelatorioSemanalCodec extends TypeAdapter<RelatorioSemanalDTO> {
+        @Override
+        public void write(JsonWriter out, RelatorioSemanalDTO value) throws IOException {
+            out.beginObject();
+            out.name("periodo").value(value.getPeriodo());
+            out.name("totalAvaliacoes").value(value.getTotalAvaliacoes());
+            out.name("mediaNotas").value(value.getMediaNotas());
+            out.name("avaliacoesPorRestaurante");
+            if (value.getAvaliacoesPorRestaurante() == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (Map.Entry<String, Integer> entry : value.getAvaliacoesPorRestaurante().entrySet()) {
+                    out.name(entry.getKey()).value(entry.getValue());
+                }
+                out.endObject();
+            }
+            out.name("comentariosNegativos");
+            escreverLista(out, value.getComentariosNegativos());
+            out.endObject();
+        }
+
+        @Override
+        public RelatorioSemanalDTO read(JsonReader in) throws IOException {
+            RelatorioSemanalDTO relatorio = new RelatorioSemanalDTO();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "periodo" -> relatorio.setPeriodo(in.nextString());
+                    case "totalAvaliacoes" -> relatorio.setTotalAvaliacoes(in.nextInt());
+                    case "mediaNotas" -> relatorio.setMediaNotas(in.nextDouble());
+                    case "avaliacoesPorRestaurante" -> {
+                        Map<String, Integer> porRestaurante = new LinkedHashMap<>();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            porRestaurante.put(in.nextName(), in.nextInt());
+                        }
+                        in.endObject();
+                        relatorio.setAvaliacoesPorRestaurante(porRestaurante);
+                    }
+                    case "comentariosNegativos" -> relatorio.setComentariosNegativos(lerLista(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return relatorio;
+        }
+    }
+
+    static final class PaginaAvaliacoesCodec extends TypeAdapter<PaginaAvaliacoesResponse> {
+        @Override
+        public void write(JsonWriter out, PaginaAvaliacoesResponse value) throws IOException {
+            out.beginObject();
+            out.name("avaliacoes");
+            escreverLista(out, value.getAvaliacoes(), AVALIACAO_RESPONSE);
+            out.name("limite").value(value.getLimite());
+            out.name("proximoCursor").value(value.getProximoCursor());
+            out.endObject();
+        }
+
+        @Override
+        public PaginaAvaliacoesResponse read(JsonReader in) throws IOException {
+            PaginaAvaliacoesResponse pagina = new PaginaAvaliacoesResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "avaliacoes" -> pagina.setAvaliacoes(lerLista(in, AVALIACAO_RESPONSE));
+                    case "limite" -> pagina.setLimite(in.nextInt());
+                    case "proximoCursor" -> pagina.setProximoCursor(in.nextLong());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return pagina;
+        }
+    }
+
+    static final class ErroItemCodec extends TypeAdapter<LoteAvaliacaoResponse.ErroItem> {
+        @Override
+        public void write(JsonWriter out, LoteAvaliacaoResponse.ErroItem value) throws IOException {
+            out.beginObject();
+            out.name("indice").value(value.getIndice());
+            out.name("mensagem").value(value.getMensagem());
+            out.endObject();
+        }
+
+        @Override
+        public LoteAvaliacaoResponse.ErroItem read(JsonReader in) throws IOException {
+            LoteAvaliacaoResponse.ErroItem erro = new LoteAvaliacaoResponse.ErroItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "indice" -> erro.setIndice(in.nextInt());
+                    case "mensagem" -> erro.setMensagem(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return erro;
+        }
+    }
+
+    static final class LoteAvaliacaoCodec extends TypeAdapter<LoteAvaliacaoResponse> {
+        @Override
+        public void write(JsonWriter out, LoteAvaliacaoResponse value) throws IOException {
+            out.beginObject();
+            out.name("totalRecebidas").value(value.getTotalRecebidas());
+            out.name("totalSalvas").value(value.getTotalSalvas());
+            out.name("avaliacoes");
+            escreverLista(out, value.getAvaliacoes(), AVALIACAO_RESPONSE);
+            out.name("erros");
+            escreverLista(out, value.getErros(), ERRO_ITEM);
+            out.endObject();
+        }
+
+        @Override
+        public LoteAvaliacaoResponse read(JsonReader in) throws IOException {
+            LoteAvaliacaoResponse lote = new LoteAvaliacaoResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "totalRecebidas" -> lote.setTotalRecebidas(in.nextInt());
+                    case "totalSalvas" -> lote.setTotalSalvas(in.nextInt());
+                    case "avaliacoes" -> lote.setAvaliacoes(lerLista(in, AVALIACAO_RESPONSE));
+                    case "erros" -> lote.setErros(lerLista(in, ERRO_ITEM));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return lote;
+        }
+    }
+
+    static final class ResumoRestauranteCodec extends TypeAdapter<ResumoRestauranteResponse> {
+        @Override
+        public void write(JsonWriter out, ResumoRestauranteResponse value) throws IOException {
+            out.beginObject();
+            out.name("restaurante").value(value.getRestaurante());
+            out.name("totalAvaliacoes").value(value.getTotalAvaliacoes());
+            out.name("mediaNotas").value(value.getMediaNotas());
+            out.name("histograma");
+            if (value.getHistograma() == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (Map.Entry<Integer, Long> entry : value.getHistograma().entrySet()) {
+                    out.name(String.valueOf(entry.getKey())).value(entry.getValue());
+                }
+                out.endObject();
+            }
+            out.name("ultimaAvaliacao");
+            LOCAL_DATE_TIME.write(out, value.getUltimaAvaliacao());
+            out.endObject();
+        }
+
+        @Override
+        public ResumoRestauranteResponse read(JsonReader in) throws IOException {
+            ResumoRestauranteResponse resumo = new ResumoRestauranteResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (campo) {
+                    case "restaurante" -> resumo.setRestaurante(in.nextString());
+                    case "totalAvaliacoes" -> resumo.setTotalAvaliacoes(in.nextLong());
+                    case "mediaNotas" -> resumo.setMediaNotas(in.nextDouble());
+                    case "histograma" -> {
+                        Map<Integer, Long> histograma = new LinkedHashMap<>();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            histograma.put(Integer.valueOf(in.nextName()), in.nextLong());
+                        }
+                        in.endObject();
+                        resumo.setHistograma(histograma);
+                    }
+                    case "ultimaAvaliacao" -> resumo.setUltimaAvaliacao(LOCAL_DATE_TIME.read(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return resumo;
+        }
+    }
+
+    static final class ErrorResponseCodec extends TypeAdapter<ErrorResponse> {
+        @Override
+        public void write(JsonWriter out, ErrorResponse value) throws IOException {
+            out.beginObject();
+            out.name("error").value(value.getError());
+            out.endObject();
+        }
+
+        @Override
+        public ErrorResponse read(JsonReader in) throws IOException {
+            ErrorResponse erro = new ErrorResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String campo = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                if (campo.equals("error")) {
+                    erro.setError(in.nextString());
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return erro;
+        }
+    }
+
+    private static <T> void escreverLista(JsonWriter out, List<T> valores, TypeAdapter<T> codec) throws IOException {
+        if (valores == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T valor : valores) {
+            codec.write(out, valor);
+        }
+        out.endArray();
+    }
+
+    private static <T> List<T> lerLista(JsonReader in, TypeAdapter<T> codec) throws IOException {
+        List<T> valores = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            valores.add(codec.read(in));
+        }
+        in.endArray();
+        return valores;
+    }
+
+    private static void escreverLista(JsonWriter out, List<String> valores) throws IOException {
+        if (valores == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String valor : valores) {
+            out.value(valor);
+        }
+        out.endArray();
+    }
+
+    private static List<String> lerLista(JsonReader in) throws IOException {
+        List<String> valores = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                valores.add(null);
+            } else {
+                valores.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return valores;
+    }
+}
@@ -0,0 +1,61 @@
+package lambda.fase4.infraestructure;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Escreve métricas no CloudWatch Embedded Metric Format: uma linha JSON por registro
+ * no stdout, extraída como métrica pelo CloudWatch Logs (sem SDK nem chamada HTTP).
+ */
+public class EmfMetricWriter {
+
+    private final PrintStream saida;
+    private final String namespace;
+
+    public EmfMetricWriter(PrintStream saida, String namespace) {
+        this.saida = saida;
+        this.namespace = namespace;
+    }
+
+    /**
+     * @param dimensoes nome e valor das dimensões (todas formam um único conjunto de dimensões)
+     * @param metricas  nome da métrica -> valor
+     * @param unidades  nome da métrica -> unidade CloudWatch (Count, None, ...)
+     */
+    public void escrever(Map<String, String> dimensoes, Map<String, Number> metricas, Map<String, String> unidades) {
+        JsonArray conjuntoDimensoes = new JsonArray();
+        dimensoes.keySet().forEach(conjuntoDimensoes::add);
+        JsonArray dimensoesJson = new JsonArray();
+        dimensoesJson.add(conjuntoDimensoes);
+
+        JsonArray definicoes = new JsonArray();
+        metricas.keySet().forEach(nome -> {
+            JsonObject definicao = new JsonObject();
+            definicao.addProperty("Name", nome);
+            definicao.addProperty("Unit", unidades.getOrDefault(nome, "None"));
+            definicoes.add(definicao);
+        });
+
+        JsonObject diretiva = new JsonObject();
+        diretiva.addProperty("Namespace", namespace);
+        diretiva.add("Dimensions", dimensoesJson);
+        diretiva.add("Metrics", definicoes);
+        JsonArray diretivas = new JsonArray();
+        diretivas.add(diretiva);
+
+        JsonObject aws = new JsonObject();
+        aws.addProperty("Timestamp", System.currentTimeMillis());
+        aws.add("CloudWatchMetrics", diretivas);
+
+        JsonObject documento = new JsonObject();
+        documento.add("_aws", aws);
+        dimensoes.forEach(documento::addProperty);
+        metricas.forEach(documento::addProperty);
+
+        // JsonObject.toString() é compacto: o EMF exige o documento em uma única linha
+        saida.println(documento);
+    }
+}
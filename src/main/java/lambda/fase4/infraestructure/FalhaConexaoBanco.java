@@ -0,0 +1,42 @@
+package lambda.fase4.infraestructure;
+
+import org.hibernate.exception.JDBCConnectionException;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Classifica exceções de acesso ao banco: falha de conexão (banco fora do ar, failover,
+ * pool sem conexão livre no acquisition-timeout) responde 503, para o cliente tentar de
+ * novo; o resto é erro interno (500).
+ */
+public final class FalhaConexaoBanco {
+
+    // Agroal lança SQLException genérica, sem SQLState, quando o acquisition-timeout expira
+    private static final String TIMEOUT_AQUISICAO_AGROAL = "acquisition timeout";
+
+    private FalhaConexaoBanco() {
+    }
+
+    public static boolean indisponivel(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof JDBCConnectionException
+                    || causa instanceof SQLTransientConnectionException
+                    || causa instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (causa instanceof SQLException sql && (conexao(sql.getSQLState())
+                    || (sql.getMessage() != null && sql.getMessage().contains(TIMEOUT_AQUISICAO_AGROAL)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Classe 08 (connection exception), 53300 (too_many_connections), 57P01..57P03 (servidor encerrando/iniciando)
+    private static boolean conexao(String sqlState) {
+        return sqlState != null && (sqlState.startsWith("08") || sqlState.equals("53300")
+            || sqlState.equals("57P01") || sqlState.equals("57P02") || sqlState.equals("57P03"));
+    }
+}
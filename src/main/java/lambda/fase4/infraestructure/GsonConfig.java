@@ -1,22 +1,16 @@
 package lambda.fase4.infraestructure;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 
-import java.time.LocalDateTime;
-
 @ApplicationScoped
 public class GsonConfig {
 
+    // Mesma instância compacta usada pelos handlers (payloads do outbox e SQS)
     @Produces
     @ApplicationScoped
     public Gson gson() {
-        return new GsonBuilder()
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-            .setPrettyPrinting()
-            .create();
+        return CodecsJson.gson();
     }
 }
-
@@ -1,23 +1,32 @@
 package lambda.fase4.infraestructure;
 
-import com.google.gson.*;
-import java.lang.reflect.Type;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
-public class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+// Adapter de stream: lê e escreve direto no JsonReader/JsonWriter, sem JsonElement intermediário
+public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     @Override
-    public JsonElement serialize(LocalDateTime localDateTime, Type type, JsonSerializationContext context) {
-        return new JsonPrimitive(localDateTime.format(formatter));
+    public void write(JsonWriter out, LocalDateTime localDateTime) throws IOException {
+        out.value(localDateTime.format(formatter));
     }
 
     @Override
-    public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context)
-            throws JsonParseException {
-        return LocalDateTime.parse(json.getAsString(), formatter);
+    public LocalDateTime read(JsonReader in) throws IOException {
+        String valor = in.nextString();
+        try {
+            return LocalDateTime.parse(valor, formatter);
+        } catch (DateTimeParseException e) {
+            throw new JsonParseException("Data inválida: " + valor, e);
+        }
     }
 }
-
@@ -0,0 +1,100 @@
+package lambda.fase4.infraestructure;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Métricas do pool de conexões por invocação: quantas conexões foram adquiridas e criadas e
+ * quanto tempo a aquisição esperou, calculadas como diferença dos contadores do Agroal desde
+ * a invocação anterior e escritas em EMF (sem chamada de rede).
+ * Requer quarkus.datasource.jdbc.enable-metrics=true; sem isso os contadores ficam zerados.
+ */
+@ApplicationScoped
+public class MetricasConexaoBanco {
+
+    private static final String NAMESPACE = "FeedbackSystem";
+    private static final Map<String, String> UNIDADES = Map.of(
+        "ConexoesAdquiridas", "Count",
+        "TempoAquisicaoConexao", "Milliseconds",
+        "ConexoesCriadas", "Count",
+        "TempoCriacaoConexao", "Milliseconds",
+        "ConexoesInvalidas", "Count");
+
+    @Inject
+    Instance<AgroalDataSource> dataSource;
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.active", defaultValue = "true")
+    boolean bancoAtivo;
+
+    private final EmfMetricWriter emfWriter = new EmfMetricWriter(System.out, NAMESPACE);
+    private long aquisicoes;
+    private long tempoAquisicaoMillis;
+    private long criacoes;
+    private long tempoCriacaoMillis;
+    private long invalidas;
+
+    /**
+     * Descarta o uso acumulado sem publicar (ex.: conexões do priming antes do checkpoint),
+     * para que não apareça na métrica da primeira invocação
+     */
+    public synchronized void descartarContagem() {
+        if (!bancoAtivo) {
+            return;
+        }
+        AgroalDataSourceMetrics metricas = dataSource.get().getMetrics();
+        aquisicoes = metricas.acquireCount();
+        tempoAquisicaoMillis = metricas.blockingTimeTotal().toMillis();
+        criacoes = metricas.creationCount();
+        tempoCriacaoMillis = metricas.creationTimeTotal().toMillis();
+        invalidas = metricas.invalidCount();
+    }
+
+    /**
+     * Publica o uso do pool desde a última chamada e devolve um resumo para o log da invocação;
+     * null se o banco está desativado ou não houve uso
+     */
+    public synchronized String publicar(String funcao) {
+        if (!bancoAtivo) {
+            return null;
+        }
+
+        AgroalDataSourceMetrics metricas = dataSource.get().getMetrics();
+        long novasAquisicoes = metricas.acquireCount() - aquisicoes;
+        long novasCriacoes = metricas.creationCount() - criacoes;
+        if (novasAquisicoes <= 0 && novasCriacoes <= 0) {
+            return null;
+        }
+
+        long tempoAquisicaoTotal = metricas.blockingTimeTotal().toMillis();
+        long tempoCriacaoTotal = metricas.creationTimeTotal().toMillis();
+        long esperaAquisicao = tempoAquisicaoTotal - tempoAquisicaoMillis;
+        long esperaCriacao = tempoCriacaoTotal - tempoCriacaoMillis;
+        long novasInvalidas = metricas.invalidCount() - invalidas;
+
+        aquisicoes += novasAquisicoes;
+        tempoAquisicaoMillis = tempoAquisicaoTotal;
+        criacoes += novasCriacoes;
+        tempoCriacaoMillis = tempoCriacaoTotal;
+        invalidas += novasInvalidas;
+
+        Map<String, Number> valores = new LinkedHashMap<>();
+        valores.put("ConexoesAdquiridas", novasAquisicoes);
+        valores.put("TempoAquisicaoConexao", esperaAquisicao);
+        valores.put("ConexoesCriadas", novasCriacoes);
+        valores.put("TempoCriacaoConexao", esperaCriacao);
+        valores.put("ConexoesInvalidas", novasInvalidas);
+        emfWriter.escrever(Map.of("Funcao", funcao), valores, UNIDADES);
+
+        return String.format("Pool de conexões: %d aquisições (%d ms de espera), %d conexões criadas (%d ms), "
+                + "%d inválidas descartadas, %d ativas / %d disponíveis",
+            novasAquisicoes, esperaAquisicao, novasCriacoes, esperaCriacao, novasInvalidas,
+            metricas.activeCount(), metricas.availableCount());
+    }
+}
@@ -0,0 +1,40 @@
+package lambda.fase4.infraestructure;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lambda.fase4.application.dto.NotificacaoBatchResponse;
+
+/**
+ * Classes acessadas por reflexão que o build nativo não descobre sozinho: eventos e respostas
+ * dos handlers (o tipo real pode ser subclasse do declarado), DTOs ainda serializados pelo Gson
+ * reflexivo e os providers do javax.mail carregados pelo nome a partir do META-INF/javamail.*.
+ * Os DTOs com codec em CodecsJson (handlers e API REST) não precisam de registro.
+ */
+@RegisterForReflection(
+    targets = {
+        SQSEvent.class,
+        SQSEvent.SQSMessage.class,
+        SQSEvent.MessageAttribute.class,
+        SQSBatchResponse.class,
+        SQSBatchResponse.BatchItemFailure.class,
+        ScheduledEvent.class,
+        NotificacaoBatchResponse.class,
+        NotificacaoBatchResponse.TempoProcessamento.class
+    },
+    classNames = {
+        "com.sun.mail.smtp.SMTPTransport",
+        "com.sun.mail.smtp.SMTPSSLTransport",
+        "com.sun.mail.handlers.text_plain",
+        "com.sun.mail.handlers.text_html",
+        "com.sun.mail.handlers.text_xml",
+        "com.sun.mail.handlers.multipart_mixed",
+        "com.sun.mail.handlers.message_rfc822"
+    }
+)
+public final class RegistroReflexaoNativa {
+
+    private RegistroReflexaoNativa() {
+    }
+}
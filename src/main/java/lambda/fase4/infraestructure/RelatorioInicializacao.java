@@ -0,0 +1,94 @@
+package lambda.fase4.infraestructure;
+
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registra o que cada função inicializou e quanto custou: o boot do Quarkus (que inclui
+ * Hibernate ORM e datasource quando ativos) e os clients AWS, criados apenas no primeiro uso.
+ * O relatório completo é emitido uma vez, na primeira invocação.
+ */
+@ApplicationScoped
+public class RelatorioInicializacao {
+
+    private static final Logger LOG = Logger.getLogger(RelatorioInicializacao.class);
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.active", defaultValue = "true")
+    boolean bancoAtivo;
+
+    private final Map<String, Object> instancias = new ConcurrentHashMap<>();
+    private final Map<String, String> subsistemas = new ConcurrentHashMap<>();
+    private final AtomicBoolean relatado = new AtomicBoolean();
+    private volatile Instant inicioProcesso;
+
+    void aoIniciar(@Observes StartupEvent event) {
+        Instant agora = Instant.now();
+        inicioProcesso = ProcessHandle.current().info().startInstant().orElse(null);
+
+        subsistemas.put("Quarkus (boot)", inicioProcesso != null
+            ? Duration.between(inicioProcesso, agora).toMillis() + " ms desde o início do processo"
+            : "tempo indisponível");
+        subsistemas.put("Hibernate ORM + datasource", bancoAtivo ? "ativo (incluído no boot)" : "desativado");
+        LOG.infof("Inicialização: %s", subsistemas);
+    }
+
+    /**
+     * Resolve o bean no primeiro uso, medindo o tempo de criação; as chamadas seguintes
+     * devolvem a mesma instância sem custo. Beans normal-scoped chegam como client proxy,
+     * que só cria a instância real na primeira chamada de método: o unwrap força a criação
+     * dentro da medição.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obter(String subsistema, Instance<T> instancia) {
+        return (T) instancias.computeIfAbsent(subsistema, chave -> {
+            long inicio = System.nanoTime();
+            T criada = instancia.get();
+            ClientProxy.unwrap(criada);
+            long duracao = (System.nanoTime() - inicio) / 1_000_000;
+
+            String registro = inicioProcesso != null
+                ? String.format("%d ms (em t+%d ms)", duracao,
+                    Duration.between(inicioProcesso, Instant.now()).toMillis())
+                : duracao + " ms";
+            subsistemas.put(chave, registro);
+            LOG.infof("%s inicializado sob demanda em %s", chave, registro);
+            return criada;
+        });
+    }
+
+    /**
+     * Registra uma etapa medida fora do boot (ex.: priming antes do checkpoint)
+     */
+    public void registrar(String subsistema, String registro) {
+        subsistemas.put(subsistema, registro);
+        LOG.infof("%s: %s", subsistema, registro);
+    }
+
+    /**
+     * Relatório de inicialização na primeira chamada; null nas seguintes
+     */
+    public String relatorioPendente() {
+        if (!relatado.compareAndSet(false, true)) {
+            return null;
+        }
+        return getRelatorio();
+    }
+
+    public String getRelatorio() {
+        StringBuilder relatorio = new StringBuilder("=== Relatório de inicialização ===");
+        subsistemas.forEach((subsistema, registro) ->
+            relatorio.append("\n  ").append(subsistema).append(": ").append(registro));
+        return relatorio.toString();
+    }
+}
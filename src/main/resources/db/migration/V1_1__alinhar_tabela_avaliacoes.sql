@@ -0,0 +1,29 @@
+-- V1 cria a tabela avaliacao, mas a entidade Avaliacao (e as migrations seguintes) usam avaliacoes.
+-- Bancos criados pelo Hibernate já têm avaliacoes; os criados por V1 têm avaliacao, renomeada aqui.
+-- Se as duas existem, avaliacao vazia é removida; com dados, fica para migração manual.
+DO $$
+BEGIN
+    IF to_regclass('avaliacao') IS NOT NULL THEN
+        IF to_regclass('avaliacoes') IS NULL THEN
+            ALTER TABLE avaliacao RENAME TO avaliacoes;
+        ELSIF NOT EXISTS (SELECT 1 FROM avaliacao) THEN
+            DROP TABLE avaliacao;
+        ELSE
+            RAISE WARNING 'As tabelas avaliacao e avaliacoes existem e avaliacao tem dados: migre-os para avaliacoes e remova avaliacao';
+        END IF;
+    END IF;
+
+    -- Os ids vêm da sequence avaliacoes_seq (V2, allocationSize 50), não do BIGSERIAL/IDENTITY:
+    -- um default restante geraria ids dentro dos blocos já entregues aos containers.
+    -- DROP DEFAULT falha em coluna IDENTITY, por isso a identidade sai antes
+    IF to_regclass('avaliacoes') IS NOT NULL THEN
+        ALTER TABLE avaliacoes ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        ALTER TABLE avaliacoes ALTER COLUMN id DROP DEFAULT;
+    END IF;
+
+    -- A sequence do BIGSERIAL acompanha a tabela renomeada; se avaliacao ficou, ela ainda é o seu default
+    IF to_regclass('avaliacao') IS NULL THEN
+        DROP SEQUENCE IF EXISTS avaliacao_id_seq;
+    END IF;
+    DROP SEQUENCE IF EXISTS avaliacoes_id_seq;
+END $$;
@@ -0,0 +1,15 @@
+CREATE SEQUENCE IF NOT EXISTS avaliacoes_seq START WITH 1 INCREMENT BY 50;
+
+-- Alinha a sequence com os ids já gerados anteriormente via IDENTITY.
+-- O otimizador pooled do Hibernate trata o valor v devolvido pelo nextval como o fim do bloco
+-- [v - 49, v] (allocationSize = 50): o próximo valor precisa ser pelo menos MAX(id) + 50.
+-- Nunca recua a sequence, pois blocos já entregues a outros containers podem estar acima do MAX(id).
+DO $$
+BEGIN
+    IF to_regclass('avaliacoes') IS NOT NULL THEN
+        PERFORM setval('avaliacoes_seq', GREATEST(
+            COALESCE((SELECT MAX(id) FROM avaliacoes), 0) + 50,
+            (SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM avaliacoes_seq)
+        ), false);
+    END IF;
+END $$;
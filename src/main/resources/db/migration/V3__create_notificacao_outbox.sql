@@ -0,0 +1,16 @@
+CREATE SEQUENCE IF NOT EXISTS notificacao_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS notificacao_outbox (
+    id BIGINT PRIMARY KEY DEFAULT nextval('notificacao_outbox_seq'),
+    avaliacao_id BIGINT NOT NULL,
+    restaurante VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    criada_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    enviada_em TIMESTAMP,
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    ultimo_erro VARCHAR(1000)
+);
+
+-- Apenas as pendentes interessam ao relay
+CREATE INDEX IF NOT EXISTS idx_notificacao_outbox_pendentes
+    ON notificacao_outbox (id) WHERE enviada_em IS NULL;
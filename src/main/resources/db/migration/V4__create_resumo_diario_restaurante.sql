@@ -0,0 +1,29 @@
+CREATE TABLE IF NOT EXISTS resumo_diario_restaurante (
+    dia DATE NOT NULL,
+    restaurante VARCHAR(255) NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    soma_notas BIGINT NOT NULL DEFAULT 0,
+    nota_1 BIGINT NOT NULL DEFAULT 0,
+    nota_2 BIGINT NOT NULL DEFAULT 0,
+    nota_3 BIGINT NOT NULL DEFAULT 0,
+    nota_4 BIGINT NOT NULL DEFAULT 0,
+    nota_5 BIGINT NOT NULL DEFAULT 0,
+    negativas BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dia, restaurante)
+);
+
+-- Backfill a partir das avaliações já existentes
+DO $$
+BEGIN
+    IF to_regclass('avaliacoes') IS NOT NULL THEN
+        INSERT INTO resumo_diario_restaurante
+            (dia, restaurante, total, soma_notas, nota_1, nota_2, nota_3, nota_4, nota_5, negativas)
+        SELECT CAST(data_avaliacao AS DATE), restaurante, COUNT(*), SUM(nota),
+               COUNT(*) FILTER (WHERE nota = 1), COUNT(*) FILTER (WHERE nota = 2),
+               COUNT(*) FILTER (WHERE nota = 3), COUNT(*) FILTER (WHERE nota = 4),
+               COUNT(*) FILTER (WHERE nota = 5), COUNT(*) FILTER (WHERE nota <= 2)
+        FROM avaliacoes
+        GROUP BY CAST(data_avaliacao AS DATE), restaurante
+        ON CONFLICT (dia, restaurante) DO NOTHING;
+    END IF;
+END $$;
@@ -0,0 +1,11 @@
+-- Índices das consultas do AvaliacaoRepository. O período (findByPeriodo, agregações do relatório
+-- e a projeção do resumo) usa idx_avaliacoes_data_id, criado em V5.
+-- Em uma tabela já grande, crie-os antes com CREATE INDEX CONCURRENTLY (fora de transação):
+-- com IF NOT EXISTS esta migration passa a não fazer nada.
+
+-- Listagem por restaurante com cursor: restaurante = ? AND id > ? ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_avaliacoes_restaurante_id ON avaliacoes (restaurante, id);
+
+-- Urgentes e negativas do período (nota <= 2): só uma fração pequena das linhas entra no índice.
+-- O predicado precisa aparecer literal na consulta (nota <= 2) para o planner usar o índice.
+CREATE INDEX IF NOT EXISTS idx_avaliacoes_negativas_data ON avaliacoes (data_avaliacao) WHERE nota <= 2;
@@ -0,0 +1,3 @@
+-- Último envio por restaurante: o relay segura as pendentes enquanto a janela de agrupamento está aberta
+CREATE INDEX IF NOT EXISTS idx_notificacao_outbox_restaurante_envio
+    ON notificacao_outbox (restaurante, enviada_em) WHERE enviada_em IS NOT NULL;
@@ -0,0 +1,18 @@
+-- Estado terminal do outbox: notificação que esgotou as tentativas de envio (dead letter).
+-- Não é mais reenviada pelo relay; o job de limpeza reporta essas linhas e as remove após a retenção.
+ALTER TABLE notificacao_outbox ADD COLUMN IF NOT EXISTS esgotada_em TIMESTAMP;
+
+-- Pendentes que já tinham esgotado as tentativas (padrão notificacao.outbox.max-tentativas=10)
+UPDATE notificacao_outbox
+   SET esgotada_em = CURRENT_TIMESTAMP
+ WHERE enviada_em IS NULL
+   AND esgotada_em IS NULL
+   AND tentativas >= 10;
+
+-- O relay só procura as pendentes que ainda podem ser enviadas
+DROP INDEX IF EXISTS idx_notificacao_outbox_pendentes;
+CREATE INDEX IF NOT EXISTS idx_notificacao_outbox_pendentes
+    ON notificacao_outbox (id) WHERE enviada_em IS NULL AND esgotada_em IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_notificacao_outbox_esgotadas
+    ON notificacao_outbox (esgotada_em) WHERE esgotada_em IS NOT NULL;
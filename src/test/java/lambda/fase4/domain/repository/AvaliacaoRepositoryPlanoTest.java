@@ -0,0 +1,189 @@
+package lambda.fase4.domain.repository;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere que as consultas do AvaliacaoRepository usam os índices de db/migration (V5 e V6) sobre
+ * um volume realista: semeia as avaliações com generate_series, roda ANALYZE, captura o SQL que o
+ * Hibernate gera para cada método (CapturaSql, ligado pelo perfil PlanoConsulta) e roda EXPLAIN desse SQL
+ * com os mesmos parâmetros JDBC, na ordem em que aparecem. Tudo é desfeito no final.
+ *
+ * findAvaliacoesUrgentes não é verificada: sem filtro de data lê todas as negativas, espalhadas
+ * por todas as páginas, e a varredura sequencial pode ser de fato o plano mais barato.
+ */
+@QuarkusTest
+@TestProfile(AvaliacaoRepositoryPlanoTest.PlanoConsulta.class)
+class AvaliacaoRepositoryPlanoTest {
+
+    private static final int AVALIACOES = 200_000;
+
+    // Restaurantes "Plano N" ao longo de 2001 (fora dos dados já existentes), data crescente com o id
+    // e cerca de 8% de notas negativas (1 ou 2)
+    private static final String SEMEAR = """
+        INSERT INTO avaliacoes (id, restaurante, nota, comentario, email_cliente, data_avaliacao)
+        SELECT base.max_id + g,
+               'Plano ' || (g % 2000),
+               CASE WHEN random() < 0.08 THEN 1 + floor(random() * 2)::int ELSE 3 + floor(random() * 3)::int END,
+               'Comentário ' || g,
+               'cliente' || (g % 50000) || '@example.com',
+               TIMESTAMP '2001-01-01 00:00:00' + (g * INTERVAL '150 seconds')
+        FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM avaliacoes) base,
+             generate_series(1, ?1) AS g
+        """;
+
+    private static final LocalDateTime DIA = LocalDateTime.of(2001, 6, 1, 0, 0);
+
+    /**
+     * Liga o CapturaSql só para esta classe: a configuração principal não referencia classes de teste
+     */
+    public static class PlanoConsulta implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.hibernate-orm.unsupported-properties.\"hibernate.session_factory.statement_inspector\"",
+                CapturaSql.class.getName());
+        }
+    }
+
+    @Inject
+    AvaliacaoRepository avaliacaoRepository;
+
+    @Test
+    @TestTransaction
+    void listagemPorRestauranteUsaIndiceRestauranteId() {
+        semear();
+
+        String sql = capturar(() -> avaliacaoRepository.findByRestaurante("Plano 42", 0L, 100));
+
+        assertUsaIndice("idx_avaliacoes_restaurante_id", sql, paginado(sql, List.of("Plano 42", 0L), 100));
+    }
+
+    @Test
+    @TestTransaction
+    void periodoUsaIndiceDataId() {
+        semear();
+        LocalDateTime fim = DIA.plusDays(1).minusSeconds(1);
+
+        String sql = capturar(() -> avaliacaoRepository.findByPeriodo(DIA, fim));
+
+        assertUsaIndice("idx_avaliacoes_data_id", sql, List.of(DIA, fim));
+    }
+
+    @Test
+    @TestTransaction
+    void negativasDoPeriodoUsamIndiceParcial() {
+        semear();
+        LocalDateTime fim = DIA.plusDays(7);
+
+        String sql = capturar(() -> avaliacaoRepository.findNegativasByPeriodo(DIA, fim));
+
+        assertUsaIndice("idx_avaliacoes_negativas_data", sql, List.of(DIA, fim));
+    }
+
+    @Test
+    @TestTransaction
+    void loteDaProjecaoUsaIndiceDataId() {
+        semear();
+        LocalDateTime limite = DIA.plusMonths(6);
+
+        String sql = capturar(() -> avaliacaoRepository.listarAposWatermark(DIA, 100_000L, limite, 1000));
+
+        // ?1 aparece duas vezes na HQL: cada ocorrência é um parâmetro JDBC
+        assertUsaIndice("idx_avaliacoes_data_id", sql, paginado(sql, List.of(DIA, DIA, 100_000L, limite), 1000));
+    }
+
+    private void semear() {
+        avaliacaoRepository.getEntityManager().createNativeQuery(SEMEAR)
+            .setParameter(1, AVALIACOES)
+            .executeUpdate();
+        // Na mesma transação: o ANALYZE conta as linhas inseridas por ela
+        avaliacaoRepository.getEntityManager().createNativeQuery("ANALYZE avaliacoes").executeUpdate();
+    }
+
+    /**
+     * SQL da consulta à tabela avaliacoes executada pelo método do repositório
+     */
+    private static String capturar(Runnable consulta) {
+        List<String> executados;
+        CapturaSql.iniciar();
+        try {
+            consulta.run();
+        } finally {
+            executados = CapturaSql.encerrar();
+        }
+        return executados.stream()
+            .filter(sql -> sql.startsWith("select") && sql.contains(" from avaliacoes "))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("nenhuma consulta a avaliacoes capturada: " + executados));
+    }
+
+    /**
+     * Parâmetros da consulta seguidos dos da paginação, que o Hibernate põe no fim do SQL:
+     * "offset ? rows fetch first ? rows only", ou só "fetch first ? rows only" com offset zero
+     */
+    private static List<Object> paginado(String sql, List<Object> parametros, int limite) {
+        List<Object> jdbc = new ArrayList<>(parametros);
+        if (marcadores(sql) == parametros.size() + 2) {
+            jdbc.add(0);
+        }
+        jdbc.add(limite);
+        return jdbc;
+    }
+
+    private void assertUsaIndice(String indice, String sql, List<Object> parametros) {
+        assertEquals(marcadores(sql), parametros.size(), "parâmetros JDBC de: " + sql);
+
+        String plano = avaliacaoRepository.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+                for (int i = 0; i < parametros.size(); i++) {
+                    explain.setObject(i + 1, parametros.get(i));
+                }
+                try (ResultSet resultado = explain.executeQuery()) {
+                    resultado.next();
+                    return resultado.getString(1);
+                }
+            }
+        });
+
+        Set<String> indices = new HashSet<>();
+        coletarIndices(JsonParser.parseString(plano).getAsJsonArray().get(0).getAsJsonObject().getAsJsonObject("Plan"),
+            indices);
+        assertTrue(indices.contains(indice), sql + "\nnão usa " + indice + ":\n" + plano);
+    }
+
+    private static void coletarIndices(JsonObject no, Set<String> indices) {
+        JsonElement indice = no.get("Index Name");
+        if (indice != null) {
+            indices.add(indice.getAsString());
+        }
+        JsonArray filhos = no.getAsJsonArray("Plans");
+        if (filhos != null) {
+            filhos.forEach(filho -> coletarIndices(filho.getAsJsonObject(), indices));
+        }
+    }
+
+    private static long marcadores(String sql) {
+        return sql.chars().filter(c -> c == '?').count();
+    }
+}
@@ -0,0 +1,38 @@
+package lambda.fase4.domain.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StatementInspector ligado pelo perfil AvaliacaoRepositoryPlanoTest.PlanoConsulta: guarda o
+ * SQL que o Hibernate envia ao JDBC enquanto a captura da thread está ligada, sem alterá-lo.
+ * O Hibernate cria uma única instância por session factory, então o estado fica por thread.
+ */
+public class CapturaSql implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURADOS = new ThreadLocal<>();
+
+    public static void iniciar() {
+        CAPTURADOS.set(new ArrayList<>());
+    }
+
+    /**
+     * Encerra a captura da thread e devolve os comandos na ordem de execução
+     */
+    public static List<String> encerrar() {
+        List<String> capturados = CAPTURADOS.get();
+        CAPTURADOS.remove();
+        return capturados != null ? capturados : List.of();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> capturados = CAPTURADOS.get();
+        if (capturados != null) {
+            capturados.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,101 @@
+package lambda.fase4.domain.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Estatísticas do relatório em uma passada com AcumuladorEstatisticas contra as quatro passadas
+ * com streams (média, contagem por restaurante, histograma e top 3) usadas antes.
+ *
+ * <pre>
+ * mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=lambda.fase4.domain.service.AcumuladorEstatisticasBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AcumuladorEstatisticasBenchmark {
+
+    @Param({"100000", "1000000"})
+    int avaliacoes;
+
+    @Param({"50", "5000"})
+    int restaurantes;
+
+    private String[] restaurante;
+    private int[] nota;
+    private List<AvaliacaoSimples> lista;
+
+    record AvaliacaoSimples(String restaurante, int nota) {}
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        String[] nomes = IntStream.range(0, restaurantes).mapToObj(i -> "Restaurante " + i).toArray(String[]::new);
+        restaurante = new String[avaliacoes];
+        nota = new int[avaliacoes];
+        for (int i = 0; i < avaliacoes; i++) {
+            restaurante[i] = nomes[random.nextInt(restaurantes)];
+            nota[i] = 1 + random.nextInt(5);
+        }
+        lista = IntStream.range(0, avaliacoes).mapToObj(i -> new AvaliacaoSimples(restaurante[i], nota[i])).toList();
+    }
+
+    @Benchmark
+    public void acumulador(Blackhole bh) {
+        AcumuladorEstatisticas acumulador = new AcumuladorEstatisticas();
+        for (int i = 0; i < avaliacoes; i++) {
+            acumulador.adicionar(restaurante[i], nota[i]);
+        }
+        bh.consume(acumulador.getMedia());
+        bh.consume(acumulador.getHistograma());
+        bh.consume(acumulador.topRestaurantes(3));
+    }
+
+    @Benchmark
+    public void streams(Blackhole bh) {
+        double media = lista.stream().mapToInt(AvaliacaoSimples::nota).average().orElse(0.0);
+        Map<String, Long> porRestaurante = lista.stream()
+            .collect(Collectors.groupingBy(AvaliacaoSimples::restaurante, Collectors.counting()));
+        Map<Integer, Long> distribuicao = lista.stream()
+            .collect(Collectors.groupingBy(AvaliacaoSimples::nota, Collectors.counting()));
+        List<String> top = porRestaurante.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+            .limit(3)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+        bh.consume(media);
+        bh.consume(distribuicao);
+        bh.consume(top);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AcumuladorEstatisticasBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
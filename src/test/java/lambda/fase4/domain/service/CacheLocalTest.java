@@ -0,0 +1,142 @@
+package lambda.fase4.domain.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Remoção por tamanho (LRU), expiração por TTL com relógio controlado e invalidação
+ * concorrente com um carregamento em andamento
+ */
+class CacheLocalTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final AtomicLong relogio = new AtomicLong();
+    private final AtomicInteger carregamentos = new AtomicInteger();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void removeAMenosUsadaAoPassarDoTamanhoMaximo() {
+        CacheLocal<Integer, String> cache = new CacheLocal<>(2, TTL, relogio::get);
+
+        cache.obter(1, this::carregar);
+        cache.obter(2, this::carregar);
+        cache.obter(1, this::carregar);
+        cache.obter(3, this::carregar);
+
+        // 2 foi a menos usada: só ela precisa ser carregada de novo
+        cache.obter(1, this::carregar);
+        cache.obter(2, this::carregar);
+        assertEquals(4, carregamentos.get());
+
+        CacheLocal.Contadores contadores = cache.contadoresDesdeUltimaLeitura();
+        assertEquals(2, contadores.getAcertos());
+        assertEquals(4, contadores.getFalhas());
+        assertEquals(2, contadores.getRemocoes());
+    }
+
+    @Test
+    void expiraAEntradaAoCompletarOTtl() {
+        CacheLocal<Integer, String> cache = new CacheLocal<>(10, TTL, relogio::get);
+
+        cache.obter(1, this::carregar);
+        relogio.addAndGet(TTL.toNanos() - 1);
+        cache.obter(1, this::carregar);
+        assertEquals(1, carregamentos.get());
+
+        relogio.addAndGet(1);
+        cache.obter(1, this::carregar);
+        assertEquals(2, carregamentos.get());
+
+        CacheLocal.Contadores contadores = cache.contadoresDesdeUltimaLeitura();
+        assertEquals(1, contadores.getAcertos());
+        assertEquals(1, contadores.getRemocoes());
+    }
+
+    @Test
+    void invalidacaoDuranteOCarregamentoDescartaOValorLido() throws Exception {
+        CacheLocal<Integer, String> cache = new CacheLocal<>(10, TTL, relogio::get);
+        CountDownLatch carregando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<String> lido = executor.submit(() -> cache.obter(1, bloqueante(carregando, liberar)));
+        carregando.await(5, TimeUnit.SECONDS);
+        cache.invalidar(1);
+        liberar.countDown();
+
+        // Quem pediu recebe o valor, mas o cache não guarda um dado anterior à invalidação
+        assertEquals("valor-1", lido.get(5, TimeUnit.SECONDS));
+        cache.obter(1, this::carregar);
+        assertEquals(1, carregamentos.get());
+    }
+
+    @Test
+    void invalidarOutraChaveNaoDescartaOCarregamento() throws Exception {
+        CacheLocal<Integer, String> cache = new CacheLocal<>(10, TTL, relogio::get);
+        cache.obter(2, this::carregar);
+        CountDownLatch carregando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<String> lido = executor.submit(() -> cache.obter(1, bloqueante(carregando, liberar)));
+        carregando.await(5, TimeUnit.SECONDS);
+        cache.invalidar(2);
+        cache.invalidarSe(chave -> chave > 1);
+        cache.colocar(3, "valor-3");
+        liberar.countDown();
+        lido.get(5, TimeUnit.SECONDS);
+
+        cache.obter(1, this::carregar);
+        assertEquals(1, carregamentos.get());
+    }
+
+    @Test
+    void invalidarSeAlcancaOCarregamentoEmAndamento() throws Exception {
+        CacheLocal<Integer, String> cache = new CacheLocal<>(10, TTL, relogio::get);
+        CountDownLatch carregando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        Future<String> lido = executor.submit(() -> cache.obter(1, bloqueante(carregando, liberar)));
+        carregando.await(5, TimeUnit.SECONDS);
+        cache.invalidarSe(chave -> chave == 1);
+        liberar.countDown();
+        lido.get(5, TimeUnit.SECONDS);
+
+        cache.obter(1, this::carregar);
+        assertEquals(1, carregamentos.get());
+    }
+
+    private String carregar(Integer chave) {
+        carregamentos.incrementAndGet();
+        return "valor-" + chave;
+    }
+
+    // Carregamento que avisa quando começou e só termina quando liberado
+    private static Function<Integer, String> bloqueante(CountDownLatch carregando, CountDownLatch liberar) {
+        return chave -> {
+            carregando.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "valor-" + chave;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package lambda.fase4.domain.service;
+
+import com.google.gson.JsonObject;
+import lambda.fase4.infraestructure.EmfMetricWriterTest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Backend EMF: cada avaliação vira um documento EMF válido no stdout, sem CloudWatchClient
+ */
+class CloudWatchMetricsServiceTest {
+
+    @Test
+    void registraAvaliacaoEmEmfNoStdout() {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            // O writer captura o System.out na construção
+            CloudWatchMetricsService service = new CloudWatchMetricsService();
+            service.backend = "emf";
+            service.registrarAvaliacao("Pizzaria Roma", 2);
+            service.registrarAvaliacao("Cantina Napoli", 5);
+        } finally {
+            System.setOut(stdout);
+        }
+
+        List<String> linhas = buffer.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, linhas.size());
+
+        JsonObject avaliacao = EmfMetricWriterTest.validarDocumentoEmf(linhas.get(0));
+        assertEquals("Pizzaria Roma", avaliacao.get("Restaurante").getAsString());
+        assertEquals(1, avaliacao.get("AvaliacoesRecebidas").getAsInt());
+        assertEquals(2, avaliacao.get("NotaAvaliacao").getAsInt());
+
+        JsonObject segunda = EmfMetricWriterTest.validarDocumentoEmf(linhas.get(1));
+        assertEquals("Cantina Napoli", segunda.get("Restaurante").getAsString());
+        assertEquals(5, segunda.get("NotaAvaliacao").getAsInt());
+    }
+}
@@ -0,0 +1,61 @@
+package lambda.fase4.domain.service;
+
+import lambda.fase4.application.dto.NotificacaoUrgenciaDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Resumo dos alertas urgentes agrupados pelo relay do outbox na janela de um restaurante
+ */
+class CoalescedorAlertasTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    @Test
+    void resumeQuantidadePeriodoPiorNotaEPioresComentarios() {
+        CoalescedorAlertas coalescedor = coalescedor(Duration.ofMinutes(5), 2);
+
+        NotificacaoUrgenciaDTO resumo = coalescedor.resumir(List.of(
+            alerta(1L, 2, "frio", 0),
+            alerta(2L, 1, "péssimo", 1),
+            alerta(3L, 2, "", 2),
+            alerta(4L, 1, "demorou", 3),
+            alerta(5L, 2, "caro", 4)
+        ));
+
+        assertTrue(resumo.isResumo());
+        assertEquals(5L, resumo.getAvaliacaoId());
+        assertEquals("Pizzaria Roma", resumo.getRestaurante());
+        assertEquals(5, resumo.getQuantidade());
+        assertEquals(1, resumo.getNota());
+        assertEquals(INICIO, resumo.getInicioPeriodo());
+        assertEquals(INICIO.plusMinutes(4), resumo.getFimPeriodo());
+        // Piores notas primeiro; em empate fica o mais antigo
+        assertEquals(List.of("péssimo", "demorou"), resumo.getComentarios());
+        assertEquals("Alertas: 5 agrupados em 1 resumos", coalescedor.getEstatisticas());
+    }
+
+    @Test
+    void janelaZeroDesativaOAgrupamento() {
+        assertFalse(coalescedor(Duration.ZERO, 3).isAtivo());
+        assertEquals(INICIO.minusMinutes(5), coalescedor(Duration.ofMinutes(5), 3).inicioJanelaAberta(INICIO));
+    }
+
+    private static CoalescedorAlertas coalescedor(Duration janela, int maxComentarios) {
+        CoalescedorAlertas coalescedor = new CoalescedorAlertas();
+        coalescedor.janela = janela;
+        coalescedor.maxComentarios = maxComentarios;
+        return coalescedor;
+    }
+
+    private static NotificacaoUrgenciaDTO alerta(Long id, int nota, String comentario, int minuto) {
+        return new NotificacaoUrgenciaDTO(id, "Pizzaria Roma", nota, comentario, INICIO.plusMinutes(minuto));
+    }
+}
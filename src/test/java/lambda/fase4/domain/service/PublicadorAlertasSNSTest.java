@@ -0,0 +1,131 @@
+package lambda.fase4.domain.service;
+
+import lambda.fase4.infraestructure.InstanciaFixa;
+import lambda.fase4.infraestructure.RelatorioInicializacao;
+import lambda.fase4.infraestructure.SnsClientLocal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Agrupamento em PublishBatch, falhas parciais e reenvio do PublicadorAlertasSNS
+ */
+class PublicadorAlertasSNSTest {
+
+    private SnsClientLocal sns;
+    private PublicadorAlertasSNS publicador;
+
+    @BeforeEach
+    void iniciar() {
+        sns = new SnsClientLocal();
+        publicador = new PublicadorAlertasSNS();
+        publicador.snsClient = new InstanciaFixa<>(sns);
+        publicador.inicializacao = new RelatorioInicializacao();
+        publicador.snsTopicArn = "arn:aws:sns:us-east-2:123456789012:urgencia-topic";
+        // Linger folgado: os lotes de 10 dos testes fecham pelo tamanho, não pelo tempo
+        publicador.linger = Duration.ofMillis(200);
+        publicador.maxTentativas = 3;
+    }
+
+    @Test
+    void agrupaDezAlertasEmUmaChamada() throws Exception {
+        List<CompletableFuture<Void>> resultados = publicarVarios(PublicadorAlertasSNS.TAMANHO_LOTE_SNS);
+
+        aguardarTodos(resultados);
+        assertEquals(1, sns.getChamadas());
+        assertEquals(PublicadorAlertasSNS.TAMANHO_LOTE_SNS, sns.getPublicadas().size());
+    }
+
+    @Test
+    void enviaLoteIncompletoAposOLinger() throws Exception {
+        publicador.publicar("Alerta", "mensagem").get(2, TimeUnit.SECONDS);
+
+        assertEquals(1, sns.getChamadas());
+        assertEquals(1, sns.getPublicadas().size());
+    }
+
+    @Test
+    void reenviaApenasAsEntradasQueFalharamPorErroDoServico() throws Exception {
+        // Entradas de número par falham na primeira tentativa
+        Set<String> jaFalharam = ConcurrentHashMap.newKeySet();
+        sns.simularFalhas(entrada -> Integer.parseInt(entrada.id()) % 2 == 0 && jaFalharam.add(entrada.id()));
+
+        List<CompletableFuture<Void>> resultados = publicarVarios(PublicadorAlertasSNS.TAMANHO_LOTE_SNS);
+
+        aguardarTodos(resultados);
+        assertEquals(2, sns.getChamadas());
+        assertEquals(PublicadorAlertasSNS.TAMANHO_LOTE_SNS, sns.getPublicadas().size());
+        assertEquals(5, jaFalharam.size());
+    }
+
+    @Test
+    void naoReenviaFalhaDoRemetente() throws Exception {
+        sns.simularFalhas(entrada -> entrada.id().equals("3"), true);
+
+        List<CompletableFuture<Void>> resultados = publicarVarios(PublicadorAlertasSNS.TAMANHO_LOTE_SNS);
+
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> resultados.get(2).get(2, TimeUnit.SECONDS));
+        assertTrue(erro.getCause().getMessage().startsWith("InvalidParameter"));
+        for (int i = 0; i < resultados.size(); i++) {
+            if (i != 2) {
+                assertNull(resultados.get(i).get(2, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, sns.getChamadas());
+        assertEquals(PublicadorAlertasSNS.TAMANHO_LOTE_SNS - 1, sns.getPublicadas().size());
+    }
+
+    @Test
+    void desisteAposMaxTentativasDeFalhaDoServico() {
+        sns.simularFalhas(entrada -> entrada.id().equals("1"));
+
+        List<CompletableFuture<Void>> resultados = publicarVarios(PublicadorAlertasSNS.TAMANHO_LOTE_SNS);
+
+        assertThrows(ExecutionException.class, () -> resultados.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(publicador.maxTentativas, sns.getChamadas());
+        assertEquals(PublicadorAlertasSNS.TAMANHO_LOTE_SNS - 1, sns.getPublicadas().size());
+    }
+
+    @Test
+    void reenviaOLoteInteiroQuandoAChamadaFalha() throws Exception {
+        sns.simularExcecoes(1);
+
+        List<CompletableFuture<Void>> resultados = publicarVarios(PublicadorAlertasSNS.TAMANHO_LOTE_SNS);
+
+        aguardarTodos(resultados);
+        assertEquals(2, sns.getChamadas());
+        assertEquals(PublicadorAlertasSNS.TAMANHO_LOTE_SNS, sns.getPublicadas().size());
+    }
+
+    @Test
+    void assuntoSemAcentosELimitadoA99Caracteres() {
+        assertEquals("ALERTA: Avaliacao critica", PublicadorAlertasSNS.assunto("🚨 ALERTA: Avaliação crítica"));
+        assertEquals(99, PublicadorAlertasSNS.assunto("x".repeat(150)).length());
+        assertNull(PublicadorAlertasSNS.assunto("🚨"));
+    }
+
+    private List<CompletableFuture<Void>> publicarVarios(int quantidade) {
+        List<CompletableFuture<Void>> resultados = new ArrayList<>();
+        for (int i = 1; i <= quantidade; i++) {
+            resultados.add(publicador.publicar("Alerta " + i, "mensagem " + i));
+        }
+        return resultados;
+    }
+
+    private static void aguardarTodos(List<CompletableFuture<Void>> resultados) throws Exception {
+        CompletableFuture.allOf(resultados.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+    }
+}
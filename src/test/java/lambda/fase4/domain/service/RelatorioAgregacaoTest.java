@@ -0,0 +1,209 @@
+package lambda.fase4.domain.service;
+
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import lambda.fase4.application.dto.RelatorioSemanalDTO;
+import lambda.fase4.domain.model.Avaliacao;
+import lambda.fase4.domain.repository.AvaliacaoRepository;
+import lambda.fase4.domain.repository.ResumoDiarioRepository;
+import org.hibernate.jpa.HibernateHints;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark da agregação do relatório semanal com 1 milhão de avaliações na semana: rollup diário
+ * (o que o relatório usa), GROUP BY no banco sobre as avaliações brutas e agregação em memória
+ * lendo todas as avaliações do período. Confere que as três chegam ao mesmo resultado e que as
+ * duas agregações no banco são mais rápidas que a em memória.
+ *
+ * Fica fora do mvnw test (tag benchmark); roda com mvnw test -Pbenchmark. Requer o PostgreSQL
+ * configurado em DB_HOST/DB_NAME; tudo é desfeito no final.
+ */
+@QuarkusTest
+@Tag("benchmark")
+@TestProfile(RelatorioAgregacaoTest.Benchmark.class)
+class RelatorioAgregacaoTest {
+
+    private static final Logger LOG = Logger.getLogger(RelatorioAgregacaoTest.class);
+
+    private static final int AVALIACOES = 1_000_000;
+    private static final int RESTAURANTES = 2000;
+    private static final int DIAS = 7;
+    private static final int MEDICOES = 3;
+
+    // Período no passado distante para não misturar com dados já existentes no banco.
+    // 1 milhão de avaliações a cada 600 ms cabem nos 7 dias; cerca de 8% negativas.
+    private static final String SEMEAR = """
+        INSERT INTO avaliacoes (id, restaurante, nota, comentario, email_cliente, data_avaliacao)
+        SELECT base.max_id + g,
+               'Restaurante ' || (g % ?2),
+               CASE WHEN random() < 0.08 THEN 1 + floor(random() * 2)::int ELSE 3 + floor(random() * 3)::int END,
+               'Comentário ' || g,
+               'cliente' || (g % 50000) || '@example.com',
+               TIMESTAMP '2001-01-01 00:00:00' + (g * INTERVAL '600 milliseconds')
+        FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM avaliacoes) base,
+             generate_series(1, ?1) AS g
+        """;
+
+    private static final String AGRUPAR_POR_RESTAURANTE = """
+        SELECT restaurante, COUNT(*), SUM(nota)
+        FROM avaliacoes
+        WHERE data_avaliacao >= ?1 AND data_avaliacao < ?2
+        GROUP BY restaurante
+        """;
+
+    private static final LocalDate INICIO = LocalDate.of(2001, 1, 1);
+    private static final LocalDate FIM = INICIO.plusDays(DIAS - 1);
+
+    /**
+     * Semear, reconstruir o rollup e ler todas as avaliações algumas vezes passa do timeout
+     * de transação padrão
+     */
+    public static class Benchmark implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("quarkus.transaction-manager.default-transaction-timeout", "15m");
+        }
+    }
+
+    @Inject
+    RelatorioService relatorioService;
+
+    @Inject
+    AvaliacaoRepository avaliacaoRepository;
+
+    @Inject
+    ResumoDiarioRepository resumoDiarioRepository;
+
+    @Test
+    @TestTransaction
+    void agregacaoNoBancoMaisRapidaQueEmMemoria() {
+        semear();
+
+        Agregado rollup = agregarRollup();
+        Agregado groupBy = agregarGroupBy();
+        Agregado memoria = agregarEmMemoria();
+
+        assertEquals(AVALIACOES, memoria.total());
+        assertEquals(memoria, rollup);
+        assertEquals(memoria, groupBy);
+
+        RelatorioSemanalDTO relatorio = relatorioService.gerarRelatorio(INICIO, FIM);
+        assertEquals(AVALIACOES, relatorio.getTotalAvaliacoes());
+        assertEquals(memoria.porRestaurante().size(), relatorio.getAvaliacoesPorRestaurante().size());
+
+        long nanosRollup = medir(this::agregarRollup);
+        long nanosGroupBy = medir(this::agregarGroupBy);
+        long nanosMemoria = medir(this::agregarEmMemoria);
+
+        LOG.infof("Agregação de %d avaliações em %d dias e %d restaurantes: rollup %d ms, GROUP BY %d ms, em memória %d ms",
+            AVALIACOES, DIAS, RESTAURANTES, nanosRollup / 1_000_000, nanosGroupBy / 1_000_000, nanosMemoria / 1_000_000);
+
+        assertTrue(nanosRollup < nanosMemoria, "rollup deve ser mais rápido que a agregação em memória");
+        assertTrue(nanosGroupBy < nanosMemoria, "GROUP BY deve ser mais rápido que a agregação em memória");
+    }
+
+    private void semear() {
+        avaliacaoRepository.getEntityManager().createNativeQuery(SEMEAR)
+            .setParameter(1, AVALIACOES)
+            .setParameter(2, RESTAURANTES)
+            .executeUpdate();
+        // Mesmo caminho do backfill: rollup recalculado das avaliações brutas
+        resumoDiarioRepository.reconstruir(INICIO, FIM);
+        avaliacaoRepository.getEntityManager().createNativeQuery("ANALYZE avaliacoes").executeUpdate();
+        avaliacaoRepository.getEntityManager().createNativeQuery("ANALYZE resumo_diario_restaurante").executeUpdate();
+    }
+
+    /**
+     * Como o RelatorioService: dias x restaurantes linhas do rollup somadas pelo AcumuladorEstatisticas
+     */
+    private Agregado agregarRollup() {
+        AcumuladorEstatisticas acumulador = new AcumuladorEstatisticas();
+        resumoDiarioRepository.listarPorPeriodo(INICIO, FIM).forEach(acumulador::adicionar);
+        // Só as linhas lidas: as próximas medições não encontram o rollup no contexto de persistência
+        resumoDiarioRepository.getEntityManager().clear();
+
+        Map<String, Long> porRestaurante = new HashMap<>();
+        acumulador.forEachRestaurante(porRestaurante::put);
+        return new Agregado(acumulador.getTotal(), Math.round(acumulador.getMedia() * 100.0) / 100.0, porRestaurante);
+    }
+
+    /**
+     * Agregação no banco sobre as avaliações brutas (uma linha por restaurante)
+     */
+    @SuppressWarnings("unchecked")
+    private Agregado agregarGroupBy() {
+        List<Object[]> linhas = avaliacaoRepository.getEntityManager().createNativeQuery(AGRUPAR_POR_RESTAURANTE)
+            .setParameter(1, INICIO.atStartOfDay())
+            .setParameter(2, FIM.plusDays(1).atStartOfDay())
+            .getResultList();
+
+        long total = 0;
+        long somaNotas = 0;
+        Map<String, Long> porRestaurante = new HashMap<>();
+        for (Object[] linha : linhas) {
+            long quantidade = ((Number) linha[1]).longValue();
+            porRestaurante.put((String) linha[0], quantidade);
+            total += quantidade;
+            somaNotas += ((Number) linha[2]).longValue();
+        }
+        return new Agregado(total, media(total, somaNotas), porRestaurante);
+    }
+
+    /**
+     * Todas as avaliações do período trafegadas e agregadas na JVM, em stream para a memória
+     * não depender do volume
+     */
+    private Agregado agregarEmMemoria() {
+        long total = 0;
+        long somaNotas = 0;
+        Map<String, Long> porRestaurante = new HashMap<>();
+        try (Stream<Avaliacao> avaliacoes = avaliacaoRepository
+                .find("dataAvaliacao >= ?1 and dataAvaliacao < ?2",
+                    INICIO.atStartOfDay(), FIM.plusDays(1).atStartOfDay())
+                .withHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .withHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            for (Avaliacao avaliacao : (Iterable<Avaliacao>) avaliacoes::iterator) {
+                total++;
+                somaNotas += avaliacao.getNota();
+                porRestaurante.merge(avaliacao.getRestaurante(), 1L, Long::sum);
+                avaliacaoRepository.getEntityManager().detach(avaliacao);
+            }
+        }
+        return new Agregado(total, media(total, somaNotas), porRestaurante);
+    }
+
+    // Menor tempo de MEDICOES execuções, depois de uma de aquecimento
+    private static long medir(Supplier<Agregado> agregacao) {
+        agregacao.get();
+        long melhor = Long.MAX_VALUE;
+        for (int i = 0; i < MEDICOES; i++) {
+            long inicio = System.nanoTime();
+            agregacao.get();
+            melhor = Math.min(melhor, System.nanoTime() - inicio);
+        }
+        return melhor;
+    }
+
+    private static double media(long total, long somaNotas) {
+        return total == 0 ? 0.0 : Math.round((double) somaNotas / total * 100.0) / 100.0;
+    }
+
+    private record Agregado(long total, double media, Map<String, Long> porRestaurante) {
+    }
+}
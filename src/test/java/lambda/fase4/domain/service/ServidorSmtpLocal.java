@@ -0,0 +1,137 @@
+package lambda.fase4.domain.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo em processo para os testes: aceita AUTH PLAIN/LOGIN sem TLS, recebe as
+ * mensagens sem guardá-las e rejeita destinatários que contenham "rejeitado".
+ * Conta conexões abertas e mensagens recebidas; derrubarConexoes() simula o servidor encerrando
+ * as conexões ociosas.
+ */
+class ServidorSmtpLocal implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<Socket> abertas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger conexoes = new AtomicInteger();
+    private final AtomicInteger encerradasPeloCliente = new AtomicInteger();
+    private final AtomicInteger mensagens = new AtomicInteger();
+
+    ServidorSmtpLocal() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("smtp-local").start(this::aceitar);
+    }
+
+    int getPorta() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getConexoes() {
+        return conexoes.get();
+    }
+
+    int getEncerradasPeloCliente() {
+        return encerradasPeloCliente.get();
+    }
+
+    int getMensagens() {
+        return mensagens.get();
+    }
+
+    void derrubarConexoes() {
+        abertas.forEach(ServidorSmtpLocal::fechar);
+        abertas.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        derrubarConexoes();
+    }
+
+    private void aceitar() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                conexoes.incrementAndGet();
+                abertas.add(socket);
+                Thread.ofVirtual().start(() -> atender(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+
+            responder(out, "220 localhost ESMTP teste");
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                String comando = linha.toUpperCase();
+                if (comando.startsWith("EHLO")) {
+                    responder(out, "250-localhost");
+                    responder(out, "250 AUTH PLAIN LOGIN");
+                } else if (comando.startsWith("HELO")) {
+                    responder(out, "250 localhost");
+                } else if (comando.startsWith("AUTH PLAIN")) {
+                    if (comando.trim().equals("AUTH PLAIN")) {
+                        responder(out, "334 ");
+                        in.readLine();
+                    }
+                    responder(out, "235 autenticado");
+                } else if (comando.startsWith("AUTH LOGIN")) {
+                    responder(out, "334 VXNlcm5hbWU6");
+                    in.readLine();
+                    responder(out, "334 UGFzc3dvcmQ6");
+                    in.readLine();
+                    responder(out, "235 autenticado");
+                } else if (comando.startsWith("RCPT TO") && comando.contains("REJEITADO")) {
+                    responder(out, "550 destinatario inexistente");
+                } else if (comando.startsWith("DATA")) {
+                    responder(out, "354 envie a mensagem");
+                    while ((linha = in.readLine()) != null && !linha.equals(".")) {
+                        // conteúdo descartado
+                    }
+                    mensagens.incrementAndGet();
+                    responder(out, "250 recebida");
+                } else if (comando.startsWith("QUIT")) {
+                    encerradasPeloCliente.incrementAndGet();
+                    responder(out, "221 tchau");
+                    return;
+                } else {
+                    // MAIL FROM, RCPT TO, RSET, NOOP
+                    responder(out, "250 ok");
+                }
+            }
+        } catch (IOException e) {
+            // conexão derrubada pelo teste
+        } finally {
+            abertas.remove(socket);
+        }
+    }
+
+    private static void responder(PrintWriter out, String resposta) {
+        out.print(resposta + "\r\n");
+        out.flush();
+    }
+
+    private static void fechar(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // já fechado
+        }
+    }
+}
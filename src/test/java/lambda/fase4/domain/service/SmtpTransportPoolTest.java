@@ -0,0 +1,116 @@
+package lambda.fase4.domain.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reuso, remoção por ociosidade e reenvio do pool SMTP contra um servidor SMTP em processo
+ */
+class SmtpTransportPoolTest {
+
+    private ServidorSmtpLocal servidor;
+    private EmailService emailService;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        servidor = new ServidorSmtpLocal();
+        emailService = new EmailService("localhost", servidor.getPorta(), "teste@local", "senha", false, 2);
+    }
+
+    @AfterEach
+    void encerrar() throws Exception {
+        emailService.fechar();
+        servidor.close();
+    }
+
+    @Test
+    void reutilizaAConexaoEntreMensagens() {
+        for (int i = 0; i < 5; i++) {
+            emailService.enviarConfirmacaoAvaliacao("cliente@local", "Restaurante", 5, "ótimo");
+        }
+
+        assertEquals(5, servidor.getMensagens());
+        assertEquals(1, servidor.getConexoes());
+    }
+
+    @Test
+    void reenviaEmNovaConexaoQuandoOServidorEncerrouAOciosa() {
+        emailService.enviarConfirmacaoAvaliacao("cliente@local", "Restaurante", 5, "ótimo");
+        servidor.derrubarConexoes();
+
+        emailService.enviarConfirmacaoAvaliacao("cliente@local", "Restaurante", 4, "bom");
+
+        assertEquals(2, servidor.getMensagens());
+        assertEquals(2, servidor.getConexoes());
+    }
+
+    @Test
+    void destinatarioRejeitadoNaoDescartaAConexao() {
+        assertThrows(RuntimeException.class, () ->
+            emailService.enviarConfirmacaoAvaliacao("rejeitado@local", "Restaurante", 5, "ótimo"));
+
+        emailService.enviarConfirmacaoAvaliacao("cliente@local", "Restaurante", 5, "ótimo");
+
+        assertEquals(1, servidor.getMensagens());
+        assertEquals(1, servidor.getConexoes());
+    }
+
+    @Test
+    void fechaConexoesOciosasAlemDoTempoMaximo() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(sessao(), 2, 50, 10_000)) {
+            pool.devolver(pool.obter());
+            assertEquals(1, pool.getQuantidadeOciosas());
+
+            Thread.sleep(100);
+            pool.removerOciosas();
+
+            assertEquals(0, pool.getQuantidadeOciosas());
+            aguardar(() -> servidor.getEncerradasPeloCliente() == 1);
+
+            // A próxima aquisição abre uma nova conexão
+            Transport transport = pool.obter();
+            pool.devolver(transport);
+            assertEquals(2, servidor.getConexoes());
+        }
+    }
+
+    @Test
+    void validaComNoopAConexaoOciosaHaMaisQueOLimiteEDescartaAPerdida() throws Exception {
+        try (SmtpTransportPool pool = new SmtpTransportPool(sessao(), 2, 10_000, 0)) {
+            pool.devolver(pool.obter());
+            servidor.derrubarConexoes();
+
+            Transport transport = pool.obter();
+            assertTrue(transport.isConnected());
+            pool.devolver(transport);
+
+            assertEquals(2, servidor.getConexoes());
+        }
+    }
+
+    private Session sessao() {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", "localhost");
+        props.put("mail.smtp.port", servidor.getPorta());
+        props.put("mail.smtp.auth", "false");
+        return Session.getInstance(props);
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 2_000;
+        while (!condicao.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertTrue(condicao.getAsBoolean());
+    }
+}
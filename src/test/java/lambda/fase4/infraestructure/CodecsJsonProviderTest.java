@@ -0,0 +1,95 @@
+package lambda.fase4.infraestructure;
+
+import com.google.gson.reflect.TypeToken;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.MediaType;
+import lambda.fase4.application.dto.AvaliacaoRequest;
+import lambda.fase4.application.dto.AvaliacaoResponse;
+import lambda.fase4.application.dto.NotificacaoBatchResponse;
+import lambda.fase4.application.dto.PaginaAvaliacoesResponse;
+import lambda.fase4.application.dto.ResumoRestauranteResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * API REST e handlers com o mesmo JSON: o provider usa os codecs de CodecsJson
+ */
+class CodecsJsonProviderTest {
+
+    private static final Type LISTA_REQUESTS = TypeToken.getParameterized(List.class, AvaliacaoRequest.class).getType();
+
+    private final CodecsJsonProvider provider = new CodecsJsonProvider();
+
+    @Test
+    void respostaRestIgualAoJsonDosHandlers() throws IOException {
+        AvaliacaoResponse avaliacao = new AvaliacaoResponse(7L, "Pizzaria Roma", 2, null,
+            LocalDateTime.of(2026, 10, 18, 12, 30, 5), "cliente@email.com");
+        PaginaAvaliacoesResponse pagina = new PaginaAvaliacoesResponse(List.of(avaliacao), 100, null);
+
+        String json = escrever(pagina, PaginaAvaliacoesResponse.class);
+
+        assertEquals("{\"avaliacoes\":[{\"id\":7,\"restaurante\":\"Pizzaria Roma\",\"nota\":2,\"comentario\":null,"
+            + "\"dataAvaliacao\":\"2026-10-18T12:30:05\",\"emailCliente\":\"cliente@email.com\"}],"
+            + "\"limite\":100,\"proximoCursor\":null}", json);
+        assertEquals(CodecsJson.gson().toJson(pagina), json);
+
+        // NDJSON: mesma representação de cada avaliação
+        StringWriter ndjson = new StringWriter();
+        CodecsJson.escrever(avaliacao, ndjson);
+        assertEquals(CodecsJson.gson().toJson(avaliacao), ndjson.toString());
+    }
+
+    @Test
+    void leLoteDeRequisicoesIgnorandoCamposDesconhecidos() throws IOException {
+        String corpo = "[{\"restaurante\":\"Cantina Napoli\",\"nota\":5,\"extra\":true},"
+            + "{\"restaurante\":\"Pizzaria Roma\",\"nota\":1,\"comentario\":\"frio\"}]";
+
+        @SuppressWarnings("unchecked")
+        List<AvaliacaoRequest> lote = (List<AvaliacaoRequest>) ler(corpo, LISTA_REQUESTS);
+
+        assertEquals(2, lote.size());
+        assertEquals("Cantina Napoli", lote.get(0).getRestaurante());
+        assertEquals(5, lote.get(0).getNota());
+        assertEquals("frio", lote.get(1).getComentario());
+    }
+
+    @Test
+    void jsonInvalidoViraBadRequest() {
+        assertThrows(BadRequestException.class, () -> ler("{\"nota\":\"cinco\"}", AvaliacaoRequest.class));
+        assertThrows(BadRequestException.class, () -> ler("{\"restaurante\":", AvaliacaoRequest.class));
+    }
+
+    @Test
+    void aceitaSoTiposComCodec() {
+        assertTrue(CodecsJson.suporta(ResumoRestauranteResponse.class));
+        assertTrue(CodecsJson.suporta(TypeToken.getParameterized(List.class, ResumoRestauranteResponse.class).getType()));
+        assertTrue(CodecsJson.suporta(AvaliacaoRequest[].class));
+        // Sem codec (ou lista sem tipo do elemento) cairia na serialização reflexiva
+        assertFalse(CodecsJson.suporta(NotificacaoBatchResponse.class));
+        assertFalse(CodecsJson.suporta(List.class));
+    }
+
+    private String escrever(Object entidade, Type tipo) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        provider.writeTo(entidade, entidade.getClass(), tipo, null, MediaType.APPLICATION_JSON_TYPE, null, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    private Object ler(String corpo, Type tipo) throws IOException {
+        return provider.readFrom(Object.class, tipo, null, MediaType.APPLICATION_JSON_TYPE, null,
+            new ByteArrayInputStream(corpo.getBytes(StandardCharsets.UTF_8)));
+    }
+}
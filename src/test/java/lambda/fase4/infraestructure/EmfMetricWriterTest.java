@@ -0,0 +1,113 @@
+package lambda.fase4.infraestructure;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Valida a saída do EmfMetricWriter contra a especificação do Embedded Metric Format
+ */
+public class EmfMetricWriterTest {
+
+    // Unidades aceitas pelo CloudWatch usadas no projeto
+    private static final Set<String> UNIDADES_VALIDAS = Set.of("Count", "Milliseconds", "Seconds", "None", "Percent");
+
+    @Test
+    void escreveUmDocumentoEmfPorLinha() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        EmfMetricWriter writer = new EmfMetricWriter(new PrintStream(buffer, true, StandardCharsets.UTF_8), "FeedbackSystem");
+
+        Map<String, Number> metricas = new LinkedHashMap<>();
+        metricas.put("ConexoesAdquiridas", 3);
+        metricas.put("TempoAquisicaoConexao", 12L);
+        writer.escrever(Map.of("Funcao", "receberFeedback"), metricas,
+            Map.of("ConexoesAdquiridas", "Count", "TempoAquisicaoConexao", "Milliseconds"));
+        writer.escrever(Map.of("Restaurante", "Pizzaria \"Roma\""), Map.of("NotaAvaliacao", 4), Map.of());
+
+        List<String> linhas = buffer.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, linhas.size());
+
+        JsonObject primeiro = validarDocumentoEmf(linhas.get(0));
+        assertEquals("FeedbackSystem", diretiva(primeiro).get("Namespace").getAsString());
+        assertEquals("receberFeedback", primeiro.get("Funcao").getAsString());
+        assertEquals(3, primeiro.get("ConexoesAdquiridas").getAsInt());
+        assertEquals("Milliseconds", unidade(primeiro, "TempoAquisicaoConexao"));
+
+        JsonObject segundo = validarDocumentoEmf(linhas.get(1));
+        assertEquals("Pizzaria \"Roma\"", segundo.get("Restaurante").getAsString());
+        // Sem unidade informada a métrica sai como None
+        assertEquals("None", unidade(segundo, "NotaAvaliacao"));
+    }
+
+    /**
+     * Regras do EMF: _aws com Timestamp em epoch millis e CloudWatchMetrics; cada diretiva com
+     * Namespace, Dimensions (lista de conjuntos de até 30 nomes) e Metrics (Name/Unit); toda
+     * dimensão referenciada é um membro string da raiz e toda métrica um membro numérico.
+     */
+    public static JsonObject validarDocumentoEmf(String linha) {
+        assertFalse(linha.contains("\n"), "documento EMF deve ocupar uma única linha");
+        JsonObject documento = JsonParser.parseString(linha).getAsJsonObject();
+
+        JsonObject aws = documento.getAsJsonObject("_aws");
+        long timestamp = aws.get("Timestamp").getAsLong();
+        assertTrue(Math.abs(System.currentTimeMillis() - timestamp) < 60_000, "Timestamp em epoch millis");
+
+        JsonArray diretivas = aws.getAsJsonArray("CloudWatchMetrics");
+        assertFalse(diretivas.isEmpty());
+        for (JsonElement elemento : diretivas) {
+            JsonObject diretiva = elemento.getAsJsonObject();
+            String namespace = diretiva.get("Namespace").getAsString();
+            assertFalse(namespace.isBlank());
+
+            for (JsonElement conjunto : diretiva.getAsJsonArray("Dimensions")) {
+                JsonArray nomes = conjunto.getAsJsonArray();
+                assertTrue(nomes.size() <= 30, "no máximo 30 dimensões por conjunto");
+                for (JsonElement nome : nomes) {
+                    JsonElement valor = documento.get(nome.getAsString());
+                    assertTrue(valor != null && valor.isJsonPrimitive() && valor.getAsJsonPrimitive().isString(),
+                        "dimensão " + nome + " deve ser um membro string da raiz");
+                }
+            }
+
+            JsonArray metricas = diretiva.getAsJsonArray("Metrics");
+            assertFalse(metricas.isEmpty());
+            assertTrue(metricas.size() <= 100, "no máximo 100 métricas por diretiva");
+            for (JsonElement elementoMetrica : metricas) {
+                JsonObject metrica = elementoMetrica.getAsJsonObject();
+                String nome = metrica.get("Name").getAsString();
+                assertTrue(UNIDADES_VALIDAS.contains(metrica.get("Unit").getAsString()), "unidade inválida em " + nome);
+                JsonElement valor = documento.get(nome);
+                assertTrue(valor != null && valor.isJsonPrimitive() && valor.getAsJsonPrimitive().isNumber(),
+                    "métrica " + nome + " deve ser um membro numérico da raiz");
+            }
+        }
+        return documento;
+    }
+
+    private static JsonObject diretiva(JsonObject documento) {
+        return documento.getAsJsonObject("_aws").getAsJsonArray("CloudWatchMetrics").get(0).getAsJsonObject();
+    }
+
+    private static String unidade(JsonObject documento, String metrica) {
+        for (JsonElement elemento : diretiva(documento).getAsJsonArray("Metrics")) {
+            if (elemento.getAsJsonObject().get("Name").getAsString().equals(metrica)) {
+                return elemento.getAsJsonObject().get("Unit").getAsString();
+            }
+        }
+        throw new AssertionError("métrica ausente na diretiva: " + metrica);
+    }
+}
@@ -0,0 +1,41 @@
+package lambda.fase4.infraestructure;
+
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.GenericJDBCException;
+import org.hibernate.exception.JDBCConnectionException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Falhas de conexão (503) separadas dos demais erros de banco (500)
+ */
+class FalhaConexaoBancoTest {
+
+    @Test
+    void timeoutDeAquisicaoDoPoolEIndisponibilidade() {
+        // Como o Hibernate embrulha a SQLException do Agroal ao não conseguir conexão
+        SQLException agroal = new SQLException("Sorry, acquisition timeout!");
+        assertTrue(FalhaConexaoBanco.indisponivel(
+            new GenericJDBCException("Unable to acquire JDBC Connection", agroal)));
+    }
+
+    @Test
+    void conexaoRecusadaOuEncerradaEIndisponibilidade() {
+        assertTrue(FalhaConexaoBanco.indisponivel(new PersistenceException(
+            new JDBCConnectionException("conexão", new SQLException("Connection refused", "08001")))));
+        assertTrue(FalhaConexaoBanco.indisponivel(new SQLException("terminating connection", "57P01")));
+        assertTrue(FalhaConexaoBanco.indisponivel(new SQLException("too many clients", "53300")));
+    }
+
+    @Test
+    void demaisErrosNaoSaoIndisponibilidade() {
+        assertFalse(FalhaConexaoBanco.indisponivel(new ConstraintViolationException("duplicada",
+            new SQLException("duplicate key", "23505"), "avaliacoes_pkey")));
+        assertFalse(FalhaConexaoBanco.indisponivel(new IllegalStateException("outro erro")));
+    }
+}
@@ -0,0 +1,70 @@
+package lambda.fase4.infraestructure;
+
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.util.TypeLiteral;
+
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Instance que devolve sempre o mesmo objeto, para testar beans fora do contêiner CDI
+ */
+public class InstanciaFixa<T> implements Instance<T> {
+
+    private final T instancia;
+
+    public InstanciaFixa(T instancia) {
+        this.instancia = instancia;
+    }
+
+    @Override
+    public T get() {
+        return instancia;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return List.of(instancia).iterator();
+    }
+
+    @Override
+    public Instance<T> select(Annotation... qualifiers) {
+        return this;
+    }
+
+    @Override
+    public <U extends T> Instance<U> select(Class<U> subtype, Annotation... qualifiers) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <U extends T> Instance<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isUnsatisfied() {
+        return false;
+    }
+
+    @Override
+    public boolean isAmbiguous() {
+        return false;
+    }
+
+    @Override
+    public void destroy(T instance) {
+        // instância fixa, sem ciclo de vida
+    }
+
+    @Override
+    public Handle<T> getHandle() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterable<? extends Handle<T>> handles() {
+        throw new UnsupportedOperationException();
+    }
+}
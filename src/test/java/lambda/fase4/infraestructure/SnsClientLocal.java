@@ -0,0 +1,134 @@
+package lambda.fase4.infraestructure;
+
+import io.quarkus.test.Mock;
+import jakarta.enterprise.context.ApplicationScoped;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+import software.amazon.awssdk.services.sns.model.SnsException;
+import software.amazon.awssdk.services.sns.model.TooManyEntriesInBatchRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * SnsClient em memória para os testes (substitui o client real nos @QuarkusTest): registra as
+ * mensagens publicadas e o número de chamadas, e simula falhas por entrada ou da chamada inteira.
+ */
+@Mock
+@ApplicationScoped
+public class SnsClientLocal implements SnsClient {
+
+    private static final int MAXIMO_ENTRADAS_LOTE = 10;
+
+    private final List<PublishBatchRequestEntry> publicadas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger chamadas = new AtomicInteger();
+    private final AtomicInteger chamadasComExcecao = new AtomicInteger();
+    private volatile Predicate<PublishBatchRequestEntry> falhar = entrada -> false;
+    private volatile boolean falhaDoRemetente;
+
+    @Override
+    public PublishResponse publish(PublishRequest request) {
+        chamadas.incrementAndGet();
+        publicadas.add(PublishBatchRequestEntry.builder()
+            .id(UUID.randomUUID().toString())
+            .subject(request.subject())
+            .message(request.message())
+            .build());
+        return PublishResponse.builder().messageId(UUID.randomUUID().toString()).build();
+    }
+
+    @Override
+    public PublishBatchResponse publishBatch(PublishBatchRequest request) {
+        if (request.publishBatchRequestEntries().size() > MAXIMO_ENTRADAS_LOTE) {
+            throw TooManyEntriesInBatchRequestException.builder()
+                .message("PublishBatch aceita no máximo " + MAXIMO_ENTRADAS_LOTE + " entradas")
+                .build();
+        }
+        chamadas.incrementAndGet();
+        if (chamadasComExcecao.getAndUpdate(restantes -> Math.max(0, restantes - 1)) > 0) {
+            throw (SnsException) SnsException.builder().message("Falha simulada da chamada").statusCode(500).build();
+        }
+
+        List<PublishBatchResultEntry> sucessos = new ArrayList<>();
+        List<BatchResultErrorEntry> falhas = new ArrayList<>();
+        for (PublishBatchRequestEntry entrada : request.publishBatchRequestEntries()) {
+            if (falhar.test(entrada)) {
+                falhas.add(BatchResultErrorEntry.builder()
+                    .id(entrada.id())
+                    .code(falhaDoRemetente ? "InvalidParameter" : "InternalError")
+                    .message("Falha simulada")
+                    .senderFault(falhaDoRemetente)
+                    .build());
+            } else {
+                publicadas.add(entrada);
+                sucessos.add(PublishBatchResultEntry.builder()
+                    .id(entrada.id())
+                    .messageId(UUID.randomUUID().toString())
+                    .build());
+            }
+        }
+
+        return PublishBatchResponse.builder()
+            .successful(sucessos)
+            .failed(falhas)
+            .build();
+    }
+
+    /**
+     * Entradas que satisfazem o predicado retornam InternalError (falha reenviável)
+     */
+    public void simularFalhas(Predicate<PublishBatchRequestEntry> falhar) {
+        simularFalhas(falhar, false);
+    }
+
+    /**
+     * Com falhaDoRemetente as entradas retornam InvalidParameter (senderFault, não reenviável)
+     */
+    public void simularFalhas(Predicate<PublishBatchRequestEntry> falhar, boolean falhaDoRemetente) {
+        this.falhar = falhar;
+        this.falhaDoRemetente = falhaDoRemetente;
+    }
+
+    /**
+     * As próximas chamadas PublishBatch lançam SnsException (HTTP 500) sem publicar nada
+     */
+    public void simularExcecoes(int chamadas) {
+        chamadasComExcecao.set(chamadas);
+    }
+
+    public List<PublishBatchRequestEntry> getPublicadas() {
+        return List.copyOf(publicadas);
+    }
+
+    public int getChamadas() {
+        return chamadas.get();
+    }
+
+    public void limpar() {
+        publicadas.clear();
+        chamadas.set(0);
+        chamadasComExcecao.set(0);
+        falhar = entrada -> false;
+        falhaDoRemetente = false;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // nada a liberar
+    }
+}